@@ -0,0 +1,56 @@
+package com.palisand.bones.log.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import com.palisand.bones.log.Appender;
+import com.palisand.bones.log.Level;
+import com.palisand.bones.log.Logger;
+import com.palisand.bones.log.PrintStreamAppender;
+
+/**
+ * Configuration shared by the benchmarks
+ */
+final class Config {
+  // only labels that Appender.setFormat supports, src/main/resources/logback.xml has the same
+  static final String FORMAT = "${date} ${time} ${level} ${message}";
+
+  private Config() {}
+
+  /**
+   * Replace the configuration by a root logger with the given level that writes to the appender
+   */
+  static void use(Level level, Appender appender) {
+    Logger root = Logger.getRootLogger();
+    root.clear();
+    root.setLevel(level);
+    root.getAppenders().add(appender);
+  }
+
+  /**
+   * @return an appender that formats every message and writes it to a stream that discards it
+   */
+  static PrintStreamAppender nullAppender() {
+    PrintStreamAppender appender =
+        new PrintStreamAppender(new PrintStream(OutputStream.nullOutputStream()));
+    appender.setFormat(FORMAT);
+    return appender;
+  }
+
+  static void reset() {
+    Logger.getRootLogger().clear();
+  }
+
+  /**
+   * Delete a temporary directory with its files
+   */
+  static void delete(Path dir) throws IOException {
+    try (Stream<Path> files = Files.walk(dir)) {
+      files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+}
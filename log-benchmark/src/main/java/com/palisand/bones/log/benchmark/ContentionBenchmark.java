@@ -0,0 +1,63 @@
+package com.palisand.bones.log.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import com.palisand.bones.log.Appender;
+import com.palisand.bones.log.AsyncAppender;
+import com.palisand.bones.log.Logger;
+
+/**
+ * Eight threads logging through one shared Logger, writing directly to the appender or through an
+ * {@link AsyncAppender}. Run with -t to use another number of threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class ContentionBenchmark {
+  @Param({"sync", "async"})
+  private String mode;
+  private Logger logger;
+  private int value = 42;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    Appender appender = Config.nullAppender();
+    if ("async".equals(mode)) {
+      appender = new AsyncAppender(appender);
+    }
+    Config.use(com.palisand.bones.log.Level.INFO, appender);
+    logger = Logger.getLogger(ContentionBenchmark.class);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    Config.reset();
+  }
+
+  @Benchmark
+  public void shared() {
+    logger.log("contended message").with("value", value).info();
+  }
+
+  @Benchmark
+  public void disabled() {
+    logger.log("contended message").with("value", value).debug();
+  }
+}
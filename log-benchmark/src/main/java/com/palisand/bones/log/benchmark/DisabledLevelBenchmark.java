@@ -0,0 +1,69 @@
+package com.palisand.bones.log.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import com.palisand.bones.log.Logger;
+
+/**
+ * Calls for a level that is switched off. These should cost next to nothing and allocate nothing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DisabledLevelBenchmark {
+  private Logger logger;
+  private org.slf4j.Logger slf4j;
+  private int value = 42;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    Config.use(com.palisand.bones.log.Level.INFO, Config.nullAppender());
+    logger = Logger.getLogger(DisabledLevelBenchmark.class);
+    slf4j = LoggerFactory.getLogger(DisabledLevelBenchmark.class);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    Config.reset();
+  }
+
+  @Benchmark
+  public void logThenLevel() {
+    logger.log("disabled message").with("value", value).debug();
+  }
+
+  @Benchmark
+  public void levelThenLog() {
+    logger.debug("disabled message").with("value", value).log();
+  }
+
+  @Benchmark
+  public void supplier() {
+    logger.debug(() -> "disabled message " + value).log();
+  }
+
+  @Benchmark
+  public void slf4j() {
+    slf4j.debug("disabled message {}", value);
+  }
+
+  @Benchmark
+  public void slf4jFluent() {
+    slf4j.atDebug().addKeyValue("value", value).log("disabled message");
+  }
+}
@@ -0,0 +1,70 @@
+package com.palisand.bones.log.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import com.palisand.bones.log.Appender;
+import com.palisand.bones.log.Logger;
+import com.palisand.bones.log.PrintStreamAppender;
+
+/**
+ * Enabled calls that are formatted by a {@link PrintStreamAppender} and written to a stream that
+ * discards them, so the cost of the logger and the layout is measured without any I/O.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EnabledBenchmark {
+  @Param({"pattern", "location", "json"})
+  private String layout;
+  private Logger logger;
+  private final Exception exception = new IllegalStateException("benchmark failure");
+  private int value = 42;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    PrintStreamAppender appender = Config.nullAppender();
+    if (Appender.JSON_LAYOUT.equals(layout)) {
+      appender.setLayout(Appender.JSON_LAYOUT);
+    } else if ("location".equals(layout)) {
+      // the location is found by walking the stack for every message
+      appender.setFormat(Config.FORMAT + " ${location}");
+    }
+    Config.use(com.palisand.bones.log.Level.INFO, appender);
+    logger = Logger.getLogger(EnabledBenchmark.class);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    Config.reset();
+  }
+
+  @Benchmark
+  public void plain() {
+    logger.log("enabled message").info();
+  }
+
+  @Benchmark
+  public void withFields() {
+    logger.log("enabled message").with("value", value).with("name", "bones").info();
+  }
+
+  @Benchmark
+  public void withThrowable() {
+    logger.log("enabled message").with(exception).info();
+  }
+}
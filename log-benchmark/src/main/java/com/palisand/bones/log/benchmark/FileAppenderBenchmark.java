@@ -0,0 +1,83 @@
+package com.palisand.bones.log.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import com.palisand.bones.log.BinaryFileAppender;
+import com.palisand.bones.log.FileAppender;
+import com.palisand.bones.log.Logger;
+
+/**
+ * Messages written by a {@link FileAppender} or a {@link BinaryFileAppender} to a file in a
+ * temporary directory, flushed for every message or buffered, with and without reusing messages.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileAppenderBenchmark {
+  @Param({"text", "binary"})
+  private String type;
+  @Param({"true", "false"})
+  private boolean immediateFlush;
+  @Param({"false", "true"})
+  private boolean reuse;
+  private Path dir;
+  private Logger logger;
+  private int value = 42;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    dir = Files.createTempDirectory("bones-log-benchmark");
+    Properties properties = new Properties();
+    properties.setProperty("file", dir.resolve("benchmark.log").toString());
+    properties.setProperty("immediateFlush", Boolean.toString(immediateFlush));
+    properties.setProperty("format", Config.FORMAT);
+    // the text format has no location either
+    properties.setProperty("includeLocation", "false");
+    FileAppender appender = "binary".equals(type) ? new BinaryFileAppender() : new FileAppender();
+    appender.init(properties);
+    Logger.setReuseMessages(reuse);
+    Config.use(com.palisand.bones.log.Level.INFO, appender);
+    logger = Logger.getLogger(FileAppenderBenchmark.class);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    Config.reset();
+    Logger.setReuseMessages(false);
+    Config.delete(dir);
+  }
+
+  @Benchmark
+  public void plain() {
+    logger.log("file message").info();
+  }
+
+  @Benchmark
+  public void withFields() {
+    logger.log("file message").with("value", value).with("name", "bones").info();
+  }
+
+  @Benchmark
+  public void withPrimitiveFields() {
+    logger.log("file message").with("value", value).with("ratio", 0.5).with("valid", true).info();
+  }
+}
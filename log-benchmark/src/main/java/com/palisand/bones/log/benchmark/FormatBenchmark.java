@@ -0,0 +1,37 @@
+package com.palisand.bones.log.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import com.palisand.bones.log.slf4j.ParameterizedMessage;
+
+/**
+ * Formatting of Slf4j messages with parameters compared with String.format
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormatBenchmark {
+  private int value = 42;
+  private String name = "bones";
+
+  @Benchmark
+  public String parameterized() {
+    return ParameterizedMessage.format("message {} of {}", value, name);
+  }
+
+  @Benchmark
+  public String stringFormat() {
+    return String.format("message %s of %s", value, name);
+  }
+}
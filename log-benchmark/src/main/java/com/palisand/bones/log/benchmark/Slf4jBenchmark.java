@@ -0,0 +1,82 @@
+package com.palisand.bones.log.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import com.palisand.bones.log.FileAppender;
+
+/**
+ * Enabled calls through the Slf4j api, written to a file that is flushed for every message. Run
+ * with the logback profile and -Dslf4j.provider=ch.qos.logback.classic.spi.LogbackServiceProvider
+ * to measure logback, configured by the logback.xml of this module to write the same lines to a
+ * file in the temporary directory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Slf4jBenchmark {
+  private org.slf4j.Logger logger;
+  private final Exception exception = new IllegalStateException("benchmark failure");
+  private int value = 42;
+
+  private Path dir;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    dir = Files.createTempDirectory("bones-log-benchmark");
+    Properties properties = new Properties();
+    properties.setProperty("file", dir.resolve("slf4j.log").toString());
+    properties.setProperty("format", Config.FORMAT);
+    FileAppender appender = new FileAppender();
+    appender.init(properties);
+    Config.use(com.palisand.bones.log.Level.INFO, appender);
+    logger = LoggerFactory.getLogger(Slf4jBenchmark.class);
+    MDC.put("request", "benchmark");
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    MDC.clear();
+    Config.reset();
+    Config.delete(dir);
+  }
+
+  @Benchmark
+  public void plain() {
+    logger.info("slf4j message");
+  }
+
+  @Benchmark
+  public void parameters() {
+    logger.info("slf4j message {} of {}", value, "bones");
+  }
+
+  @Benchmark
+  public void throwable() {
+    logger.info("slf4j message {}", value, exception);
+  }
+
+  @Benchmark
+  public void fluent() {
+    logger.atInfo().addKeyValue("value", value).log("slf4j message {}", "bones");
+  }
+}
@@ -1,52 +1,220 @@
 package com.palisand.bones.log;
 
 import java.io.IOException;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Properties;
-import java.util.function.Function;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
 @Getter
 @Setter
 public abstract class Appender {
+  public static final String PATTERN_LAYOUT = "pattern";
+  public static final String JSON_LAYOUT = "json";
+  // initialised before LOG, because creating the first Logger may create the default appender
+  private static final Pattern LABEL = Pattern.compile("\\$\\{([\\w.]+)\\}");
+  private static final String CONTEXT_PREFIX = "context.";
+  private static final int MAX_BUFFER_SIZE = 64 * 1024;
+  private static final ThreadLocal<StringBuilder> BUFFER =
+      ThreadLocal.withInitial(() -> new StringBuilder(256));
   private static final Logger LOG = Logger.getLogger(Appender.class);
+  // added to the number of users once a reload replaced the appender
+  private static final int RETIRED = 1 << 30;
+  private static final int CLOSED = Integer.MIN_VALUE;
   private Level level = null;
   private String format;
-  private List<Function<Message, String>> fields;
+  private String layout = PATTERN_LAYOUT;
+  private boolean includeLocation = true;
+  @Getter(AccessLevel.NONE)
+  @Setter(AccessLevel.NONE)
+  private Segment[] segments = {(out, msg) -> msg.appendMessageString(out)};
+  @Setter(AccessLevel.NONE)
+  private boolean locationRequired = false;
+  @Getter(AccessLevel.NONE)
+  @Setter(AccessLevel.NONE)
+  private TimestampRenderer dateRenderer = TimestampRenderer.DATE;
+  @Getter(AccessLevel.NONE)
+  @Setter(AccessLevel.NONE)
+  private TimestampRenderer timeRenderer = TimestampRenderer.TIME;
+  @Getter(AccessLevel.NONE)
+  @Setter(AccessLevel.NONE)
+  private final AppenderMetrics metrics = new AppenderMetrics();
+  // the number of threads in append, plus RETIRED once a reload replaced this appender
+  @Getter(AccessLevel.NONE)
+  @Setter(AccessLevel.NONE)
+  private final AtomicInteger users = new AtomicInteger();
 
+  /**
+   * Part of a compiled format that appends its text for a message
+   */
+  interface Segment {
+    void append(StringBuilder out, Message msg);
+  }
+
+  /**
+   * Compile the format into a list of segments that each append a literal or a part of the message
+   * to the output, so formatting a message does not parse the format again.
+   */
   public void setFormat(String pattern) {
-    StringBuilder result = new StringBuilder(pattern);
-    Matcher m = Pattern.compile("\\$\\{(\\w+)\\}").matcher(pattern);
-    ArrayList<Function<Message, String>> list = new ArrayList<>();
-    int offset = 0;
+    Matcher m = LABEL.matcher(pattern);
+    List<Segment> list = new ArrayList<>();
+    int last = 0;
+    boolean location = false;
     while (m.find()) {
-      String replacement = "%s";
+      addLiteral(list, pattern.substring(last, m.start()));
       String label = m.group(1);
       if (label.equals("level")) {
-        replacement = "%5s";
-        list.add(msg -> msg.getLevel().name());
+        list.add((out, msg) -> appendLevel(out, msg.getLevel()));
       } else if (label.equals("date")) {
-        list.add(msg -> msg.getDate());
+        list.add((out, msg) -> dateRenderer.append(out, msg.getEpochSecond(), msg.getNano()));
       } else if (label.equals("time")) {
-        list.add(msg -> msg.getTime());
+        list.add((out, msg) -> timeRenderer.append(out, msg.getEpochSecond(), msg.getNano()));
       } else if (label.equals("location")) {
-        list.add(msg -> msg.getLocation());
+        location = true;
+        list.add((out, msg) -> out.append(msg.getLocation()));
       } else if (label.equals("message")) {
-        list.add(msg -> msg.getMessageString());
+        list.add((out, msg) -> msg.appendMessageString(out));
+      } else if (label.equals("context")) {
+        list.add((out, msg) -> appendContext(out, msg.getContext()));
+      } else if (label.startsWith(CONTEXT_PREFIX)) {
+        String key = label.substring(CONTEXT_PREFIX.length());
+        list.add((out, msg) -> out.append(msg.getContext().getOrDefault(key, "")));
+      } else {
+        addLiteral(list, m.group());
+      }
+      last = m.end();
+    }
+    addLiteral(list, pattern.substring(last));
+    format = pattern;
+    layout = PATTERN_LAYOUT;
+    segments = list.toArray(new Segment[list.size()]);
+    locationRequired = location;
+    Logger.reconfigure();
+  }
+
+  /**
+   * Select how messages are formatted: with the format pattern or as one JSON object per line.
+   * Setting a format switches back to the pattern layout.
+   */
+  public void setLayout(String layout) {
+    if (JSON_LAYOUT.equals(layout)) {
+      this.layout = JSON_LAYOUT;
+      segments = new Segment[] {(out, msg) -> JsonLayout.append(out, msg, includeLocation)};
+      locationRequired = includeLocation;
+      Logger.reconfigure();
+    } else if (PATTERN_LAYOUT.equals(layout)) {
+      setFormat(format != null ? format : "${message}");
+    } else {
+      throw new IllegalArgumentException("Unknown layout " + layout);
+    }
+  }
+
+  /**
+   * Set whether the JSON layout writes the location of the log statement. Leaving it out saves
+   * walking the stack for every message.
+   */
+  public void setIncludeLocation(boolean includeLocation) {
+    this.includeLocation = includeLocation;
+    if (JSON_LAYOUT.equals(layout)) {
+      setLayout(JSON_LAYOUT);
+    }
+  }
+
+  public String getDatePattern() {
+    return dateRenderer.getPattern();
+  }
+
+  public void setDatePattern(String pattern) {
+    dateRenderer = new TimestampRenderer(pattern, dateRenderer.getZone());
+  }
+
+  public String getTimePattern() {
+    return timeRenderer.getPattern();
+  }
+
+  public void setTimePattern(String pattern) {
+    timeRenderer = new TimestampRenderer(pattern, timeRenderer.getZone());
+  }
+
+  public ZoneId getTimeZone() {
+    return timeRenderer.getZone();
+  }
+
+  public void setTimeZone(ZoneId zone) {
+    dateRenderer = new TimestampRenderer(dateRenderer.getPattern(), zone);
+    timeRenderer = new TimestampRenderer(timeRenderer.getPattern(), zone);
+  }
+
+  private static void addLiteral(List<Segment> list, String literal) {
+    if (!literal.isEmpty()) {
+      list.add((out, msg) -> out.append(literal));
+    }
+  }
+
+  private static void appendContext(StringBuilder out, Map<String, String> context) {
+    boolean first = true;
+    for (Entry<String, String> entry : context.entrySet()) {
+      if (!first) {
+        out.append(", ");
       }
-      result.replace(m.start() - offset, m.end() - offset, replacement);
-      offset += m.end() - m.start() - replacement.length();
+      out.append(entry.getKey()).append('=').append(entry.getValue());
+      first = false;
+    }
+  }
+
+  private static void appendLevel(StringBuilder out, Level level) {
+    String name = level.name();
+    for (int i = name.length(); i < 5; ++i) {
+      out.append(' ');
     }
-    format = result.toString();
-    fields = list;
+    out.append(name);
   }
 
   protected String formatMessage(Message msg) {
-    return String.format(format, fields.stream().map(f -> f.apply(msg)).toArray());
+    StringBuilder out = acquireBuffer();
+    try {
+      formatMessage(msg, out);
+      return out.toString();
+    } finally {
+      releaseBuffer(out);
+    }
+  }
+
+  /**
+   * @return an empty StringBuilder that is confined to the current thread. Give it back with
+   *         {@link #releaseBuffer(StringBuilder)} when done.
+   */
+  protected static StringBuilder acquireBuffer() {
+    StringBuilder out = BUFFER.get();
+    if (out.length() != 0) {
+      // the buffer is in use higher up the stack of this thread
+      return new StringBuilder();
+    }
+    return out;
+  }
+
+  protected static void releaseBuffer(StringBuilder out) {
+    out.setLength(0);
+    if (out.capacity() > MAX_BUFFER_SIZE) {
+      BUFFER.remove();
+    }
+  }
+
+  /**
+   * Append the formatted message to the output
+   */
+  protected void formatMessage(Message msg, StringBuilder out) {
+    for (Segment segment : segments) {
+      segment.append(out, msg);
+    }
   }
 
   public boolean isEnabled(Level level) {
@@ -55,11 +223,127 @@ public abstract class Appender {
 
   public abstract void log(Message msg);
 
-  interface ThrowingConsumer {
+  /**
+   * Pass an enabled message to {@link #log(Message)} and count it, its duration and failures. A
+   * failing appender does not make the log statement fail.
+   */
+  final void append(Message msg) {
+    if (!isEnabled(msg.getLevel())) {
+      return;
+    }
+    users.incrementAndGet();
+    long start = System.nanoTime();
+    try {
+      log(msg);
+      metrics.messages.increment();
+    } catch (RuntimeException ex) {
+      metrics.failures.increment();
+      System.err.println("Unexpected failure in appender " + this);
+      ex.printStackTrace();
+    } finally {
+      metrics.latency.record(System.nanoTime() - start);
+      if (users.decrementAndGet() == RETIRED) {
+        closeRetired();
+      }
+    }
+  }
+
+  /**
+   * Close this appender once no thread is passing a message to it, because a reload replaced it
+   * while threads that use the previous configuration may still be appending
+   */
+  void retire() {
+    if (users.addAndGet(RETIRED) == RETIRED) {
+      closeRetired();
+    }
+  }
+
+  private void closeRetired() {
+    if (users.compareAndSet(RETIRED, CLOSED)) {
+      try {
+        close();
+      } catch (RuntimeException ex) {
+        System.err.println("Unexpected failure while closing appender " + this);
+        ex.printStackTrace();
+      }
+    }
+  }
+
+  /**
+   * Count the bytes written by this appender
+   */
+  protected void addBytes(long count) {
+    metrics.bytes.add(count);
+  }
+
+  /**
+   * Count the bytes written by this appender for a message, also for the statement that logged it
+   * when the {@link LogProfiler} is enabled
+   */
+  protected void addBytes(Message msg, long count) {
+    metrics.bytes.add(count);
+    LogProfiler.addBytes(msg, count);
+  }
+
+  /**
+   * Count a message that could not be written
+   */
+  protected void addFailure() {
+    metrics.failures.increment();
+  }
+
+  /**
+   * @return the number of messages this appender did not write because it could not keep up
+   */
+  public long getDroppedCount() {
+    return 0;
+  }
+
+  /**
+   * @return the number of messages waiting to be written
+   */
+  public int getQueueSize() {
+    return 0;
+  }
+
+  /**
+   * @return whether this appender keeps messages after {@link #log(Message)} returns, like to write
+   *         them later on another thread. Messages are not reused for loggers with such appenders.
+   */
+  public boolean isMessageRetained() {
+    return false;
+  }
+
+  /**
+   * @return the appender that this appender passes its messages to, if any
+   */
+  public Appender getDelegate() {
+    return null;
+  }
+
+  AppenderMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Release the resources of this appender. Buffered messages must be written before this method
+   * returns.
+   */
+  public void close() {}
+
+  public interface ThrowingConsumer {
     void apply(String value) throws Exception;
   }
 
   protected void initProperty(Properties properties, String name, ThrowingConsumer setter) {
+    applyProperty(properties, name, setter);
+  }
+
+  /**
+   * Pass the trimmed value of a property to the setter, if it is present. Invalid values are logged
+   * and ignored.
+   */
+  static void applyProperty(Properties properties, String name, ThrowingConsumer setter) {
     String value = properties.getProperty(name);
     if (value != null) {
       value = value.trim();
@@ -74,5 +358,40 @@ public abstract class Appender {
   public void init(Properties properties) throws IOException {
     initProperty(properties, "level", value -> level = Level.valueOf(value));
     initProperty(properties, "format", value -> setFormat(value));
+    initProperty(properties, "includeLocation",
+        value -> setIncludeLocation(Boolean.parseBoolean(value)));
+    initProperty(properties, "layout", value -> setLayout(value));
+    initProperty(properties, "timeZone", value -> setTimeZone(ZoneId.of(value)));
+    initProperty(properties, "datePattern", value -> setDatePattern(value));
+    initProperty(properties, "timePattern", value -> setTimePattern(value));
+  }
+
+  static Appender create(String className, Properties properties)
+      throws ReflectiveOperationException, IOException {
+    Appender appender = (Appender) Class.forName(className).getConstructor().newInstance();
+    appender.init(properties);
+    return appender;
+  }
+
+  /**
+   * Create the appender that this appender wraps, with the class in the property 'appender'. The
+   * wrapped appender gets all properties except 'appender' and the given properties of this one.
+   */
+  Appender createDelegate(Properties properties, String... own) throws IOException {
+    String className = properties.getProperty("appender");
+    if (className == null) {
+      throw new IOException(getClass().getSimpleName() + " needs an 'appender' property");
+    }
+    Properties delegateProperties = new Properties();
+    delegateProperties.putAll(properties);
+    delegateProperties.remove("appender");
+    for (String name : own) {
+      delegateProperties.remove(name);
+    }
+    try {
+      return create(className.trim(), delegateProperties);
+    } catch (ReflectiveOperationException ex) {
+      throw new IOException("Could not create appender " + className, ex);
+    }
   }
 }
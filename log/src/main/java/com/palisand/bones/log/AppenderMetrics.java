@@ -0,0 +1,13 @@
+package com.palisand.bones.log;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of an appender, updated without locking by every thread that logs
+ */
+final class AppenderMetrics {
+  final LongAdder messages = new LongAdder();
+  final LongAdder bytes = new LongAdder();
+  final LongAdder failures = new LongAdder();
+  final LatencyHistogram latency = new LatencyHistogram();
+}
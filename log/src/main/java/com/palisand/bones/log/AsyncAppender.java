@@ -0,0 +1,242 @@
+package com.palisand.bones.log;
+
+import java.io.IOException;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Appender that decouples the logging threads from the I/O of another appender. Messages are put
+ * in a bounded lock-free ring buffer and handed to the wrapped appender by one background thread.
+ * When the buffer is full the configured {@link Overflow} policy decides what happens. On close
+ * the buffer is drained before the wrapped appender is closed.
+ *
+ * <p>
+ * The wrapped appender is configured with the property 'appender'. All other properties are passed
+ * on to the wrapped appender as well.
+ *
+ * <pre>
+ * bones.log.appenders=com.palisand.bones.log.AsyncAppender
+ * bones.log.com.palisand.bones.log.AsyncAppender.appender=com.palisand.bones.log.FileAppender
+ * bones.log.com.palisand.bones.log.AsyncAppender.bufferSize=8192
+ * bones.log.com.palisand.bones.log.AsyncAppender.overflow=DROP_BELOW_LEVEL
+ * bones.log.com.palisand.bones.log.AsyncAppender.file=log/application.log
+ * </pre>
+ */
+public class AsyncAppender extends Appender {
+
+  public enum Overflow {
+    /** wait until the background thread has made room in the buffer */
+    BLOCK,
+    /** drop messages less severe than the overflow level, block for the others */
+    DROP_BELOW_LEVEL,
+    /** remove the oldest message from the buffer to make room for the new one */
+    DISCARD_OLDEST
+  }
+
+  private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+  private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+  @Getter
+  @Setter
+  private Appender appender;
+  @Getter
+  @Setter
+  private int bufferSize = 8192;
+  @Getter
+  @Setter
+  private Overflow overflow = Overflow.BLOCK;
+  @Getter
+  @Setter
+  private Level overflowLevel = Level.WARN;
+  @Getter
+  @Setter
+  private long shutdownTimeout = 5000;
+
+  private volatile RingBuffer<Message> buffer;
+  private volatile Thread worker;
+  private volatile boolean running = false;
+  private volatile boolean closed = false;
+  private volatile boolean workerParked = false;
+  private final LongAdder dropped = new LongAdder();
+  private final LongAdder discarded = new LongAdder();
+
+  public AsyncAppender() {}
+
+  public AsyncAppender(Appender appender) {
+    this.appender = appender;
+  }
+
+  @Override
+  public void init(Properties properties) throws IOException {
+    super.init(properties);
+    initProperty(properties, "bufferSize", value -> bufferSize = Integer.parseInt(value));
+    initProperty(properties, "overflow", value -> overflow = Overflow.valueOf(value));
+    initProperty(properties, "overflowLevel", value -> overflowLevel = Level.valueOf(value));
+    initProperty(properties, "shutdownTimeout", value -> shutdownTimeout = Long.parseLong(value));
+    appender = createDelegate(properties, "bufferSize", "overflow", "overflowLevel",
+        "shutdownTimeout");
+  }
+
+  /**
+   * @return the number of messages dropped because the buffer was full or the appender was closed
+   */
+  @Override
+  public long getDroppedCount() {
+    return dropped.sum();
+  }
+
+  /**
+   * @return the number of queued messages removed to make room for newer ones
+   */
+  public long getDiscardedCount() {
+    return discarded.sum();
+  }
+
+  /**
+   * @return the number of messages waiting in the buffer
+   */
+  @Override
+  public int getQueueSize() {
+    RingBuffer<Message> current = buffer;
+    return current == null ? 0 : current.size();
+  }
+
+  @Override
+  public void log(Message msg) {
+    if (!isEnabled(msg.getLevel())) {
+      return;
+    }
+    if (!running && !start()) {
+      dropped.increment();
+      return;
+    }
+    if (Thread.currentThread() == worker) {
+      deliver(msg);
+      return;
+    }
+    // the worker formats the message later, so build its text while the arguments are unchanged
+    msg.freeze();
+    RingBuffer<Message> current = buffer;
+    if (!current.offer(msg)) {
+      enqueueWhenFull(current, msg);
+    }
+    if (workerParked) {
+      LockSupport.unpark(worker);
+    }
+  }
+
+  private void enqueueWhenFull(RingBuffer<Message> current, Message msg) {
+    if (overflow == Overflow.DISCARD_OLDEST) {
+      do {
+        if (current.poll() != null) {
+          discarded.increment();
+        }
+      } while (!current.offer(msg));
+      return;
+    }
+    if (overflow == Overflow.DROP_BELOW_LEVEL
+        && msg.getLevel().ordinal() > overflowLevel.ordinal()) {
+      dropped.increment();
+      return;
+    }
+    while (!current.offer(msg)) {
+      if (!running) {
+        dropped.increment();
+        return;
+      }
+      LockSupport.unpark(worker);
+      LockSupport.parkNanos(this, FULL_PARK_NANOS);
+    }
+  }
+
+  private synchronized boolean start() {
+    if (buffer != null || closed) {
+      return running;
+    }
+    if (appender == null) {
+      throw new IllegalStateException("AsyncAppender has no appender to send messages to");
+    }
+    buffer = new RingBuffer<>(bufferSize);
+    running = true;
+    Thread thread = new Thread(this::consume, "bones-log-async");
+    thread.setDaemon(true);
+    worker = thread;
+    thread.start();
+    return true;
+  }
+
+  private void consume() {
+    RingBuffer<Message> current = buffer;
+    while (running || !current.isEmpty()) {
+      Message msg = current.poll();
+      if (msg != null) {
+        deliver(msg);
+      } else {
+        workerParked = true;
+        if (running && current.isEmpty()) {
+          LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+        }
+        workerParked = false;
+      }
+    }
+  }
+
+  private void deliver(Message msg) {
+    appender.append(msg);
+  }
+
+  @Override
+  public void close() {
+    Thread thread;
+    synchronized (this) {
+      closed = true;
+      if (!running) {
+        if (appender != null) {
+          appender.close();
+        }
+        return;
+      }
+      running = false;
+      thread = worker;
+    }
+    LockSupport.unpark(thread);
+    try {
+      thread.join(shutdownTimeout);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+    Message msg;
+    while ((msg = buffer.poll()) != null) {
+      deliver(msg);
+    }
+    appender.close();
+  }
+
+  @Override
+  public boolean isMessageRetained() {
+    return true;
+  }
+
+  @Override
+  public Appender getDelegate() {
+    return appender;
+  }
+
+  @Override
+  public boolean isLocationRequired() {
+    return appender != null && appender.isLocationRequired();
+  }
+
+  @Override
+  public void setFormat(String pattern) {
+    super.setFormat(pattern);
+    if (appender != null) {
+      appender.setFormat(pattern);
+    }
+  }
+
+}
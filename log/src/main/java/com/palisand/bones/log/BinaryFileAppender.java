@@ -0,0 +1,306 @@
+package com.palisand.bones.log;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Properties;
+import com.palisand.bones.log.slf4j.ParameterizedMessage;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * File appender that writes messages in a compact binary format instead of text. Logger names,
+ * locations, message templates and field names are written once per file in a dictionary and
+ * referred to by a number after that. Timestamps are written as the difference with the previous
+ * message and numbers, booleans and strings in fields keep their type. The text of Slf4j messages
+ * is not formatted at all: the template and the arguments are written instead.
+ *
+ * <p>
+ * The appender has all properties of the {@link FileAppender}, like rotation and compression,
+ * except the format and the layout. The dictionary holds at most 'maxDictionarySize' strings per
+ * file, strings that do not fit are written in full. Texts that differ for every message use up
+ * the dictionary, so keep the varying values in fields or template arguments. Like the JSON layout
+ * the location is written unless 'includeLocation' is false.
+ *
+ * <p>
+ * Use {@link BinaryLogDecoder} to turn the files back into text or JSON.
+ *
+ * <pre>
+ * bones.log.appenders=com.palisand.bones.log.BinaryFileAppender
+ * bones.log.com.palisand.bones.log.BinaryFileAppender.file=log/app.blog
+ * bones.log.com.palisand.bones.log.BinaryFileAppender.immediateFlush=false
+ * </pre>
+ */
+public class BinaryFileAppender extends FileAppender {
+  @Getter
+  @Setter
+  private int maxDictionarySize = 10_000;
+
+  private final Map<String, Integer> dictionary = new HashMap<>();
+  // the strings added to the dictionary by the message that is being written
+  private final List<String> pending = new ArrayList<>();
+  private final BinaryFormat.Output definitions = new BinaryFormat.Output();
+  private final BinaryFormat.Output record = new BinaryFormat.Output();
+  private final BinaryFormat.Output scratch = new BinaryFormat.Output();
+  private long previousTimestamp = 0;
+
+  @Override
+  public synchronized void init(Properties properties) throws IOException {
+    initProperty(properties, "maxDictionarySize",
+        value -> maxDictionarySize = Integer.parseInt(value));
+    super.init(properties);
+  }
+
+  @Override
+  public boolean isLocationRequired() {
+    return isIncludeLocation();
+  }
+
+  /**
+   * The text is not needed, the message is written by {@link #encode(Message, StringBuilder)}
+   */
+  @Override
+  protected void formatMessage(Message msg, StringBuilder out) {}
+
+  @Override
+  protected int startFile(boolean empty) throws IOException {
+    dictionary.clear();
+    previousTimestamp = 0;
+    record.clear();
+    if (empty) {
+      for (byte b : BinaryFormat.MAGIC) {
+        record.writeByte(b);
+      }
+      record.writeByte(BinaryFormat.VERSION);
+    } else {
+      // messages of an earlier run are in the file, start again with an empty dictionary
+      record.writeVarLong(1);
+      record.writeByte(BinaryFormat.RESET);
+    }
+    writeBytes(record.getBytes(), record.getLength());
+    return record.getLength();
+  }
+
+  /**
+   * @return the end of the last complete record, so the record that an application stopping
+   *         halfway through a write left behind does not swallow the records appended after it
+   */
+  @Override
+  protected long getAppendPosition(File file, long size) throws IOException {
+    int header = BinaryFormat.MAGIC.length + 1;
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+      byte[] start = new byte[(int) Math.min(size, header)];
+      in.readFully(start);
+      for (int i = 0; i < start.length && i < BinaryFormat.MAGIC.length; ++i) {
+        if (start[i] != BinaryFormat.MAGIC[i]) {
+          throw new IOException("Not a binary log file: " + file);
+        }
+      }
+      if (start.length < header) {
+        // only part of the header was written, write it again
+        return 0;
+      }
+      long position = header;
+      while (position < size) {
+        long length = 0;
+        int count = 0;
+        int b;
+        do {
+          b = in.read();
+          if (b < 0 || count == 10) {
+            return position;
+          }
+          length |= (long) (b & 0x7f) << 7 * count++;
+        } while ((b & 0x80) != 0);
+        if (length < 1 || length > size - position - count) {
+          return position;
+        }
+        in.skipNBytes(length);
+        position += count + length;
+      }
+      return position;
+    }
+  }
+
+  @Override
+  protected int encode(Message msg, StringBuilder formatted) throws IOException {
+    definitions.clear();
+    record.clear();
+    pending.clear();
+    try {
+      writeMessage(msg);
+    } catch (RuntimeException ex) {
+      // the definitions are not written, like when a toString fails, so forget them again
+      pending.forEach(dictionary::remove);
+      throw ex;
+    }
+    int count = definitions.getLength();
+    writeBytes(definitions.getBytes(), count);
+    scratch.clear();
+    scratch.writeVarLong(record.getLength() + 1);
+    scratch.writeByte(BinaryFormat.MESSAGE);
+    writeBytes(scratch.getBytes(), scratch.getLength());
+    writeBytes(record.getBytes(), record.getLength());
+    return count + scratch.getLength() + record.getLength();
+  }
+
+  private void writeMessage(Message msg) {
+    long nanos = msg.getEpochSecond() * 1_000_000_000L + msg.getNano();
+    record.writeZigZag(nanos - previousTimestamp);
+    previousTimestamp = nanos;
+    record.writeByte(msg.getLevel().ordinal());
+    Object[] arguments = msg.getArguments();
+    String location = isIncludeLocation() ? msg.getLocation() : null;
+    int flags = (location != null ? BinaryFormat.LOCATION : 0)
+        | (arguments != null ? BinaryFormat.TEMPLATE : 0)
+        | (msg.getFieldCount() > 0 ? BinaryFormat.FIELDS : 0)
+        | (!msg.getContext().isEmpty() ? BinaryFormat.CONTEXT : 0)
+        | (msg.getThrowable() != null ? BinaryFormat.THROWABLE : 0);
+    record.writeByte(flags);
+    writeReference(msg.getLogger().getName());
+    if (location != null) {
+      writeReference(location);
+    }
+    if (arguments != null) {
+      writeReference(msg.getTemplate());
+      record.writeVarLong(arguments.length);
+      for (Object argument : arguments) {
+        writeArgument(argument);
+      }
+    } else {
+      writeReference(msg.getMessage());
+    }
+    if (msg.getFieldCount() > 0) {
+      record.writeVarLong(msg.getFieldCount());
+      for (int i = 0; i < msg.getFieldCount(); ++i) {
+        writeReference(msg.getFieldName(i));
+        writeField(msg, i);
+      }
+    }
+    if (!msg.getContext().isEmpty()) {
+      record.writeVarLong(msg.getContext().size());
+      for (Entry<String, String> entry : msg.getContext().entrySet()) {
+        writeReference(entry.getKey());
+        record.writeString(entry.getValue());
+      }
+    }
+    if (msg.getThrowable() != null) {
+      StringWriter trace = new StringWriter();
+      try (PrintWriter writer = new PrintWriter(trace)) {
+        msg.getThrowable().printStackTrace(writer);
+      }
+      record.writeString(trace.getBuffer());
+    }
+  }
+
+  /**
+   * Write the id of a string in the dictionary. A string that is not in it yet is added with a
+   * DEFINE record that is written before the message.
+   */
+  private void writeReference(String value) {
+    if (value == null) {
+      value = "null";
+    }
+    Integer id = dictionary.get(value);
+    if (id == null && dictionary.size() < maxDictionarySize) {
+      id = dictionary.size();
+      dictionary.put(value, id);
+      pending.add(value);
+      scratch.clear();
+      scratch.writeByte(BinaryFormat.DEFINE);
+      scratch.writeString(value);
+      definitions.writeVarLong(scratch.getLength());
+      definitions.writeBytes(scratch);
+    }
+    if (id != null) {
+      record.writeVarLong(id + 1);
+    } else {
+      record.writeVarLong(0);
+      record.writeString(value);
+    }
+  }
+
+  private boolean writeTyped(Object value) {
+    if (value == null) {
+      record.writeByte(BinaryFormat.NULL);
+    } else if (value instanceof Boolean bool) {
+      record.writeByte(bool ? BinaryFormat.TRUE : BinaryFormat.FALSE);
+    } else if (value instanceof Long || value instanceof Integer || value instanceof Short
+        || value instanceof Byte) {
+      record.writeByte(BinaryFormat.LONG);
+      record.writeZigZag(((Number) value).longValue());
+    } else if (value instanceof Double number) {
+      record.writeByte(BinaryFormat.DOUBLE);
+      record.writeFixed(Double.doubleToRawLongBits(number), 8);
+    } else if (value instanceof Float number) {
+      record.writeByte(BinaryFormat.FLOAT);
+      record.writeFixed(Float.floatToRawIntBits(number), 4);
+    } else if (value instanceof BigDecimal || value instanceof BigInteger) {
+      record.writeByte(BinaryFormat.DECIMAL);
+      record.writeString(value.toString());
+    } else if (value instanceof CharSequence chars) {
+      record.writeByte(BinaryFormat.STRING);
+      record.writeString(chars);
+    } else {
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Write the value of a field, primitive values without boxing them
+   */
+  private void writeField(Message msg, int index) {
+    long bits = msg.getFieldBits(index);
+    switch (msg.getFieldType(index)) {
+      case OBJECT -> {
+        Object value = msg.getFieldValue(index);
+        if (!writeTyped(value)) {
+          record.writeByte(BinaryFormat.STRING);
+          record.writeString(value.toString());
+        }
+      }
+      case LONG -> {
+        record.writeByte(BinaryFormat.LONG);
+        record.writeZigZag(bits);
+      }
+      case DOUBLE -> {
+        record.writeByte(BinaryFormat.DOUBLE);
+        record.writeFixed(bits, 8);
+      }
+      case FLOAT -> {
+        record.writeByte(BinaryFormat.FLOAT);
+        record.writeFixed(bits, 4);
+      }
+      case BOOLEAN -> record.writeByte(bits != 0 ? BinaryFormat.TRUE : BinaryFormat.FALSE);
+      case CHAR -> {
+        record.writeByte(BinaryFormat.STRING);
+        record.writeString(String.valueOf((char) bits));
+      }
+    }
+  }
+
+  /**
+   * Write an argument of a template. Values without a type of their own are written as the text
+   * they get in the message, which is not always their toString, like for arrays.
+   */
+  private void writeArgument(Object argument) {
+    if (!writeTyped(argument)) {
+      record.writeByte(BinaryFormat.STRING);
+      record.writeString(ParameterizedMessage.format("{}", new Object[] {argument}));
+    }
+  }
+
+}
@@ -0,0 +1,163 @@
+package com.palisand.bones.log;
+
+import java.util.Arrays;
+
+/**
+ * The layout of the files written by {@link BinaryFileAppender} and read by
+ * {@link BinaryLogDecoder}.
+ *
+ * <pre>
+ * file    = MAGIC VERSION record*
+ * record  = varint(length of type and payload) type payload
+ * DEFINE  = string                   adds the string to the dictionary with the next id
+ * RESET   =                          empties the dictionary and the timestamp, written when
+ *                                    messages are appended to an existing file
+ * MESSAGE = zigzag(timestamp - previous timestamp in nanoseconds) level flags ref(logger)
+ *           [ref(location)] (ref(template) varint(count) value* | ref(text))
+ *           [varint(count) (ref(key) value)*]  fields
+ *           [varint(count) (ref(key) string)*] context
+ *           [string]                           stack trace of the throwable
+ * ref     = varint(0) string | varint(dictionary id + 1)
+ * string  = varint(length) UTF-8 bytes
+ * value   = NULL | FALSE | TRUE | LONG zigzag | FLOAT 4 bytes | DOUBLE 8 bytes | DECIMAL string
+ *           | STRING string
+ * </pre>
+ *
+ * Unknown record types are skipped, so later versions can add records that older decoders ignore.
+ */
+final class BinaryFormat {
+  static final byte[] MAGIC = {'B', 'L', 'O', 'G'};
+  static final byte VERSION = 1;
+
+  static final byte DEFINE = 1;
+  static final byte RESET = 2;
+  static final byte MESSAGE = 3;
+
+  static final int LOCATION = 1;
+  static final int TEMPLATE = 2;
+  static final int FIELDS = 4;
+  static final int CONTEXT = 8;
+  static final int THROWABLE = 16;
+
+  static final byte NULL = 0;
+  static final byte FALSE = 1;
+  static final byte TRUE = 2;
+  static final byte LONG = 3;
+  static final byte FLOAT = 4;
+  static final byte DOUBLE = 5;
+  static final byte DECIMAL = 6;
+  static final byte STRING = 7;
+
+  private BinaryFormat() {}
+
+  /**
+   * Growable array of bytes with the primitive encodings of the format
+   */
+  static final class Output {
+    private byte[] bytes = new byte[256];
+    private int length = 0;
+
+    byte[] getBytes() {
+      return bytes;
+    }
+
+    int getLength() {
+      return length;
+    }
+
+    void clear() {
+      length = 0;
+    }
+
+    private void ensure(int extra) {
+      if (length + extra > bytes.length) {
+        bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+      }
+    }
+
+    void writeByte(int value) {
+      ensure(1);
+      bytes[length++] = (byte) value;
+    }
+
+    void writeBytes(Output other) {
+      ensure(other.length);
+      System.arraycopy(other.bytes, 0, bytes, length, other.length);
+      length += other.length;
+    }
+
+    void writeVarLong(long value) {
+      ensure(10);
+      while ((value & ~0x7fL) != 0) {
+        bytes[length++] = (byte) (value & 0x7f | 0x80);
+        value >>>= 7;
+      }
+      bytes[length++] = (byte) value;
+    }
+
+    /**
+     * Write a signed number so that small negative numbers take as few bytes as small positive ones
+     */
+    void writeZigZag(long value) {
+      writeVarLong(value << 1 ^ value >> 63);
+    }
+
+    void writeFixed(long value, int count) {
+      ensure(count);
+      for (int i = 0; i < count; ++i) {
+        bytes[length++] = (byte) (value >>> i * 8);
+      }
+    }
+
+    void writeString(CharSequence chars) {
+      int count = utf8Length(chars);
+      writeVarLong(count);
+      ensure(count);
+      int end = chars.length();
+      for (int i = 0; i < end; ++i) {
+        char c = chars.charAt(i);
+        if (c < 0x80) {
+          bytes[length++] = (byte) c;
+        } else if (c < 0x800) {
+          bytes[length++] = (byte) (0xc0 | c >> 6);
+          bytes[length++] = (byte) (0x80 | c & 0x3f);
+        } else if (Character.isHighSurrogate(c) && i + 1 < end
+            && Character.isLowSurrogate(chars.charAt(i + 1))) {
+          int codePoint = Character.toCodePoint(c, chars.charAt(++i));
+          bytes[length++] = (byte) (0xf0 | codePoint >> 18);
+          bytes[length++] = (byte) (0x80 | codePoint >> 12 & 0x3f);
+          bytes[length++] = (byte) (0x80 | codePoint >> 6 & 0x3f);
+          bytes[length++] = (byte) (0x80 | codePoint & 0x3f);
+        } else if (Character.isSurrogate(c)) {
+          bytes[length++] = '?';
+        } else {
+          bytes[length++] = (byte) (0xe0 | c >> 12);
+          bytes[length++] = (byte) (0x80 | c >> 6 & 0x3f);
+          bytes[length++] = (byte) (0x80 | c & 0x3f);
+        }
+      }
+    }
+
+    private static int utf8Length(CharSequence chars) {
+      int count = 0;
+      int end = chars.length();
+      for (int i = 0; i < end; ++i) {
+        char c = chars.charAt(i);
+        if (c < 0x80) {
+          count += 1;
+        } else if (c < 0x800) {
+          count += 2;
+        } else if (Character.isHighSurrogate(c) && i + 1 < end
+            && Character.isLowSurrogate(chars.charAt(i + 1))) {
+          count += 4;
+          ++i;
+        } else if (Character.isSurrogate(c)) {
+          count += 1;
+        } else {
+          count += 3;
+        }
+      }
+      return count;
+    }
+  }
+}
@@ -0,0 +1,330 @@
+package com.palisand.bones.log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import com.palisand.bones.log.slf4j.ParameterizedMessage;
+
+/**
+ * Reads the files written by {@link BinaryFileAppender} back as messages. The messages have the
+ * logger, level, timestamp, location, fields and context they were logged with, so any appender
+ * can write them again. A throwable is only available as its stack trace.
+ *
+ * <p>
+ * Run it to write binary log files to the standard output as text, with the same format labels as
+ * the other appenders, or as JSON. Files ending with .gz are decompressed. Without files it reads
+ * the standard input.
+ *
+ * <pre>
+ * java -cp bones-log.jar com.palisand.bones.log.BinaryLogDecoder [--json] [--format pattern]
+ *     [--timeZone zone] [file...]
+ * </pre>
+ */
+public class BinaryLogDecoder implements Closeable {
+  static final String DEFAULT_FORMAT = "${date} ${time} ${level} [${location}] ${message}";
+
+  private final DataInputStream in;
+  private final List<String> dictionary = new ArrayList<>();
+  private long previousTimestamp = 0;
+  private byte[] data = new byte[256];
+  private int length;
+  private int position;
+
+  /**
+   * Stack trace of a throwable that was logged. It prints the recorded trace instead of its own.
+   */
+  private static final class RecordedThrowable extends Throwable {
+    private static final long serialVersionUID = 1L;
+    private final String trace;
+
+    RecordedThrowable(String trace) {
+      super(trace.lines().findFirst().orElse(""), null, false, false);
+      this.trace = trace;
+    }
+
+    @Override
+    public void printStackTrace(PrintWriter writer) {
+      writer.print(trace);
+    }
+
+    @Override
+    public void printStackTrace(PrintStream stream) {
+      stream.print(trace);
+    }
+
+    @Override
+    public String toString() {
+      return getMessage();
+    }
+  }
+
+  /**
+   * Writes messages as text or JSON to a stream without flushing after every message
+   */
+  private static final class TextOutput extends Appender {
+    private final PrintStream out;
+
+    TextOutput(PrintStream out) {
+      this.out = out;
+    }
+
+    @Override
+    public void log(Message msg) {
+      out.println(formatMessage(msg));
+    }
+  }
+
+  public BinaryLogDecoder(InputStream in) throws IOException {
+    this.in = new DataInputStream(new BufferedInputStream(in));
+    byte[] header = new byte[BinaryFormat.MAGIC.length + 1];
+    try {
+      this.in.readFully(header);
+    } catch (EOFException ex) {
+      throw new IOException("Not a binary log file", ex);
+    }
+    for (int i = 0; i < BinaryFormat.MAGIC.length; ++i) {
+      if (header[i] != BinaryFormat.MAGIC[i]) {
+        throw new IOException("Not a binary log file");
+      }
+    }
+    if (header[BinaryFormat.MAGIC.length] > BinaryFormat.VERSION) {
+      throw new IOException(
+          "Binary log file version " + header[BinaryFormat.MAGIC.length] + " is not supported");
+    }
+  }
+
+  /**
+   * @return the next message in the file or null at the end of the file. An incomplete message at
+   *         the end, written when the application stopped, is ignored.
+   */
+  public Message read() throws IOException {
+    while (readRecord()) {
+      byte type = data[position++];
+      if (type == BinaryFormat.MESSAGE) {
+        return readMessage();
+      } else if (type == BinaryFormat.DEFINE) {
+        dictionary.add(readString());
+      } else if (type == BinaryFormat.RESET) {
+        dictionary.clear();
+        previousTimestamp = 0;
+      }
+    }
+    return null;
+  }
+
+  private boolean readRecord() throws IOException {
+    int first = in.read();
+    if (first < 0) {
+      return false;
+    }
+    try {
+      long size = first & 0x7f;
+      for (int shift = 7; (first & 0x80) != 0; shift += 7) {
+        first = in.readUnsignedByte();
+        size |= (long) (first & 0x7f) << shift;
+      }
+      if (size < 1 || size > Integer.MAX_VALUE) {
+        throw new IOException("Invalid record length " + size);
+      }
+      if (data.length < size) {
+        data = new byte[Math.max((int) size, data.length * 2)];
+      }
+      length = (int) size;
+      position = 0;
+      in.readFully(data, 0, length);
+      return true;
+    } catch (EOFException ex) {
+      return false;
+    }
+  }
+
+  private Message readMessage() throws IOException {
+    long nanos = previousTimestamp + readZigZag();
+    previousTimestamp = nanos;
+    Instant timestamp = Instant.ofEpochSecond(0, nanos);
+    int ordinal = readByte();
+    if (ordinal >= Level.values().length) {
+      throw new IOException("Unknown level " + ordinal);
+    }
+    Level level = Level.values()[ordinal];
+    int flags = readByte();
+    Logger logger = Logger.getLogger(readReference());
+    String location = (flags & BinaryFormat.LOCATION) != 0 ? readReference() : "unknown";
+    Supplier<String> text;
+    if ((flags & BinaryFormat.TEMPLATE) != 0) {
+      String template = readReference();
+      Object[] arguments = new Object[(int) readVarLong()];
+      for (int i = 0; i < arguments.length; ++i) {
+        arguments[i] = readValue();
+      }
+      text = new ParameterizedMessage(template, arguments);
+    } else {
+      String message = readReference();
+      text = () -> message;
+    }
+    List<Object> fields = new ArrayList<>();
+    if ((flags & BinaryFormat.FIELDS) != 0) {
+      for (long count = readVarLong(); count > 0; --count) {
+        fields.add(readReference());
+        fields.add(readValue());
+      }
+    }
+    SortedMap<String, String> context = Collections.emptySortedMap();
+    if ((flags & BinaryFormat.CONTEXT) != 0) {
+      context = new TreeMap<>();
+      for (long count = readVarLong(); count > 0; --count) {
+        context.put(readReference(), readString());
+      }
+      context = Collections.unmodifiableSortedMap(context);
+    }
+    Message msg = new Message(logger, level, text, timestamp, context);
+    msg.setLocation(location);
+    for (int i = 0; i < fields.size(); i += 2) {
+      msg.with((String) fields.get(i), fields.get(i + 1));
+    }
+    if ((flags & BinaryFormat.THROWABLE) != 0) {
+      msg.with(new RecordedThrowable(readString()));
+    }
+    return msg;
+  }
+
+  private int readByte() throws IOException {
+    if (position >= length) {
+      throw new IOException("Unexpected end of record");
+    }
+    return data[position++] & 0xff;
+  }
+
+  private long readVarLong() throws IOException {
+    long result = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      int b = readByte();
+      result |= (long) (b & 0x7f) << shift;
+      if ((b & 0x80) == 0) {
+        return result;
+      }
+    }
+    throw new IOException("Invalid number in record");
+  }
+
+  private long readZigZag() throws IOException {
+    long value = readVarLong();
+    return value >>> 1 ^ -(value & 1);
+  }
+
+  private long readFixed(int count) throws IOException {
+    long result = 0;
+    for (int i = 0; i < count; ++i) {
+      result |= (long) readByte() << i * 8;
+    }
+    return result;
+  }
+
+  private String readString() throws IOException {
+    long size = readVarLong();
+    if (size > length - position) {
+      throw new IOException("Unexpected end of record");
+    }
+    String result = new String(data, position, (int) size, StandardCharsets.UTF_8);
+    position += (int) size;
+    return result;
+  }
+
+  private String readReference() throws IOException {
+    long id = readVarLong();
+    if (id == 0) {
+      return readString();
+    }
+    if (id > dictionary.size()) {
+      throw new IOException("Unknown dictionary id " + (id - 1));
+    }
+    return dictionary.get((int) id - 1);
+  }
+
+  private Object readValue() throws IOException {
+    int type = readByte();
+    return switch (type) {
+      case BinaryFormat.NULL -> null;
+      case BinaryFormat.FALSE -> Boolean.FALSE;
+      case BinaryFormat.TRUE -> Boolean.TRUE;
+      case BinaryFormat.LONG -> readZigZag();
+      case BinaryFormat.FLOAT -> Float.intBitsToFloat((int) readFixed(4));
+      case BinaryFormat.DOUBLE -> Double.longBitsToDouble(readFixed(8));
+      case BinaryFormat.DECIMAL -> new BigDecimal(readString());
+      case BinaryFormat.STRING -> readString();
+      default -> throw new IOException("Unknown value type " + type);
+    };
+  }
+
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+
+  /**
+   * Write all messages in the input to the appender
+   */
+  public static void decode(InputStream in, Appender appender) throws IOException {
+    try (BinaryLogDecoder decoder = new BinaryLogDecoder(in)) {
+      for (Message msg = decoder.read(); msg != null; msg = decoder.read()) {
+        appender.log(msg);
+      }
+    }
+  }
+
+  private static InputStream open(String file) throws IOException {
+    InputStream in = new FileInputStream(file);
+    return file.endsWith(".gz") ? new GZIPInputStream(in) : in;
+  }
+
+  public static void main(String[] args) throws IOException {
+    PrintStream out = new PrintStream(new BufferedOutputStream(System.out, 64 * 1024), false,
+        StandardCharsets.UTF_8);
+    TextOutput output = new TextOutput(out);
+    output.setFormat(DEFAULT_FORMAT);
+    List<String> files = new ArrayList<>();
+    for (int i = 0; i < args.length; ++i) {
+      if (args[i].equals("--json")) {
+        output.setLayout(Appender.JSON_LAYOUT);
+      } else if (args[i].equals("--format") && i + 1 < args.length) {
+        output.setFormat(args[++i]);
+      } else if (args[i].equals("--timeZone") && i + 1 < args.length) {
+        output.setTimeZone(ZoneId.of(args[++i]));
+      } else if (args[i].startsWith("--")) {
+        System.err.println("usage: BinaryLogDecoder [--json] [--format pattern] "
+            + "[--timeZone zone] [file...]");
+        System.exit(1);
+      } else {
+        files.add(args[i]);
+      }
+    }
+    try {
+      if (files.isEmpty()) {
+        decode(System.in, output);
+      }
+      for (String file : files) {
+        decode(open(file), output);
+      }
+    } finally {
+      out.flush();
+    }
+  }
+}
@@ -0,0 +1,62 @@
+package com.palisand.bones.log;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Properties;
+import java.util.Timer;
+import java.util.TimerTask;
+
+/**
+ * Checks the modification time and size of the configuration file periodically and reloads the
+ * configuration when one of them changed. Polling is used instead of a WatchService because it also
+ * notices files that are replaced through a symbolic link, like mounted configuration maps.
+ */
+class ConfigWatcher extends TimerTask {
+  private static final Timer TIMER = new Timer("bones-log-config", true);
+
+  private final File file;
+  private final long interval;
+  private long lastModified;
+  private long length;
+
+  ConfigWatcher(File file, long interval) {
+    this.file = file;
+    this.interval = interval;
+    lastModified = file.lastModified();
+    length = file.length();
+    TIMER.schedule(this, interval, interval);
+  }
+
+  boolean isWatching(File file, long interval) {
+    return this.file.equals(file) && this.interval == interval;
+  }
+
+  @Override
+  public void run() {
+    long modified = file.lastModified();
+    long size = file.length();
+    if (modified == lastModified && size == length) {
+      return;
+    }
+    if (modified == 0) {
+      // the file is being replaced, try again next time
+      return;
+    }
+    lastModified = modified;
+    length = size;
+    Properties properties = new Properties();
+    try (Reader reader = new FileReader(file)) {
+      properties.load(reader);
+    } catch (IOException ex) {
+      Logger.getLogger(ConfigWatcher.class).log("Could not read changed logging config")
+          .with("file-name", file.getAbsolutePath()).with(ex).warn();
+      return;
+    }
+    Logger.reload(properties);
+    Logger.getLogger(ConfigWatcher.class).log("reloaded bones-log configuration")
+        .with("file-name", file.getAbsolutePath()).info();
+    Logger.watch(file, properties);
+  }
+}
@@ -1,25 +1,54 @@
 package com.palisand.bones.log;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.text.SimpleDateFormat;
 import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.Locale;
 import java.util.Properties;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
 import lombok.Getter;
 import lombok.Setter;
 
 /**
- * Subclass of PrintStreamAppender that rotates the log file based on a configurable time period
- * using a background Timer. The active log file always retains the original base name. The rotated
- * file is archived using a timestamp suffix representing the start time of the period that just
- * finished.
+ * Appender that writes to a file through a FileChannel. Messages are encoded as UTF-8 straight into
+ * a direct ByteBuffer, which is written to the channel according to the flush policy. By default
+ * every message is flushed. With immediateFlush switched off the buffer is flushed when it holds
+ * flushSize bytes, every flushInterval milliseconds and for every message at flushLevel or more
+ * severe. With force switched on every flush is synced to the storage device.
+ *
+ * <p>
+ * The log file can be rotated based on a configurable time period using a background Timer. The
+ * active log file always retains the original base name. The rotated file is archived using a
+ * timestamp suffix representing the start time of the period that just finished. With maxSize the
+ * file is also rotated when it reaches that size. Rotated files then get an index as extra suffix.
+ *
+ * <p>
+ * Rotated files can be compressed with gzip and cleaned up so that no more than maxHistory rotated
+ * files and no more than totalSizeCap bytes of rotated files remain. This is done by a background
+ * thread, so it does not delay the logging threads.
+ *
+ * <p>
+ * The output stream that it has as a {@link PrintStreamAppender} is deprecated: messages are not
+ * written through it anymore. Use a PrintStreamAppender for a stream of your own.
  */
-
 public class FileAppender extends PrintStreamAppender {
 
   @Setter
@@ -27,27 +56,351 @@ public class FileAppender extends PrintStreamAppender {
   private String logFile;
   private String currentPostfix;
 
-  private static final Timer ROTATION_TIMER = new Timer("FileRotator");
+  // the suffixes of rotated files: a period like .2024-03-01.13-45, an index and .gz, at least one
+  private static final String ROTATED_SUFFIX =
+      "(?=\\.)(\\.\\d{4}(-\\d{2}){0,2}(\\.\\d{2}(-\\d{2}){0,2})?)?(\\.\\d+)?(\\.gz)?";
+  private static final Timer ROTATION_TIMER = new Timer("FileRotator", true);
+  private static final ExecutorService ARCHIVER = Executors.newSingleThreadExecutor(task -> {
+    Thread thread = new Thread(task, "FileArchiver");
+    thread.setDaemon(true);
+    return thread;
+  });
 
   @Setter
   @Getter
   private ChronoUnit rotationUnit = null;
+  @Setter
+  @Getter
+  private int bufferSize = 8192;
+  @Setter
+  @Getter
+  private boolean immediateFlush = true;
+  @Setter
+  @Getter
+  private int flushSize = 8192;
+  @Setter
+  @Getter
+  private long flushInterval = 1000;
+  @Setter
+  @Getter
+  private Level flushLevel = Level.WARN;
+  @Setter
+  @Getter
+  private boolean force = false;
+  @Setter
+  @Getter
+  private long maxSize = 0;
+  @Setter
+  @Getter
+  private boolean compress = false;
+  @Setter
+  @Getter
+  private int maxHistory = 0;
+  @Setter
+  @Getter
+  private long totalSizeCap = 0;
+
+  private FileChannel channel;
+  private ByteBuffer buffer;
+  private final Utf8Encoder.Sink<IOException> sink = bytes -> write();
+  private TimerTask rotationTask;
+  private TimerTask flushTask;
+  private boolean closed = false;
+  private long size = 0;
+  private boolean rotating = false;
+  private boolean periodEnded = false;
+  // the stream of getOutputStream, that writes to the file through the buffer
+  private PrintStream fileStream;
 
   public FileAppender() {
     super(null);
   }
 
+  /**
+   * @deprecated messages are written to a FileChannel, log through a logger instead
+   * @return the stream set with {@link #setOutputStream(PrintStream)} or a stream that writes to
+   *         the file through the buffer of this appender
+   */
+  @Deprecated
+  @Override
+  public synchronized PrintStream getOutputStream() {
+    PrintStream stream = super.getOutputStream();
+    if (stream != null) {
+      return stream;
+    }
+    if (fileStream == null) {
+      fileStream = new PrintStream(new FileOutput(), true, StandardCharsets.UTF_8);
+    }
+    return fileStream;
+  }
+
+  /**
+   * @deprecated use a {@link PrintStreamAppender} to write to a stream of your own
+   * @param stream the stream that the messages are printed to instead of the file, or null to
+   *        write to the file again
+   */
+  @Deprecated
+  @Override
+  public synchronized void setOutputStream(PrintStream stream) {
+    super.setOutputStream(stream);
+  }
+
+  /**
+   * Writes bytes to the file through the buffer, for {@link #getOutputStream()}
+   */
+  private class FileOutput extends OutputStream {
+    @Override
+    public void write(int b) throws IOException {
+      write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+      synchronized (FileAppender.this) {
+        if (closed) {
+          throw new IOException("FileAppender is closed");
+        }
+        if (channel == null) {
+          openFile();
+        }
+        writeBytes(Arrays.copyOfRange(bytes, offset, offset + length), length);
+        size += length;
+        if (immediateFlush) {
+          flush();
+        }
+      }
+    }
+  }
+
   @Override
   public synchronized void init(Properties properties) throws IOException {
     super.init(properties);
     initProperty(properties, "file", value -> this.logFile = value);
     initProperty(properties, "rotation", value -> this.rotationUnit = ChronoUnit.valueOf(value));
-    File file = new File(logFile);
-    PrintStream out = new PrintStream(new FileOutputStream(file, true));
-    setOutputStream(out);
+    initProperty(properties, "bufferSize", value -> bufferSize = Integer.parseInt(value));
+    initProperty(properties, "immediateFlush",
+        value -> immediateFlush = Boolean.parseBoolean(value));
+    initProperty(properties, "flushSize", value -> flushSize = Integer.parseInt(value));
+    initProperty(properties, "flushInterval", value -> flushInterval = Long.parseLong(value));
+    initProperty(properties, "flushLevel", value -> flushLevel = Level.valueOf(value));
+    initProperty(properties, "force", value -> force = Boolean.parseBoolean(value));
+    initProperty(properties, "maxSize", value -> maxSize = parseSize(value));
+    initProperty(properties, "compress", value -> compress = Boolean.parseBoolean(value));
+    initProperty(properties, "maxHistory", value -> maxHistory = Integer.parseInt(value));
+    initProperty(properties, "totalSizeCap", value -> totalSizeCap = parseSize(value));
+    open();
+  }
+
+  /**
+   * Parse a number of bytes with an optional unit KB, MB or GB
+   */
+  static long parseSize(String value) {
+    String size = value.trim().toUpperCase(Locale.ROOT);
+    if (size.endsWith("B")) {
+      size = size.substring(0, size.length() - 1);
+    }
+    long factor = 1;
+    if (size.endsWith("K")) {
+      factor = 1024;
+    } else if (size.endsWith("M")) {
+      factor = 1024 * 1024;
+    } else if (size.endsWith("G")) {
+      factor = 1024 * 1024 * 1024;
+    }
+    if (factor != 1) {
+      size = size.substring(0, size.length() - 1);
+    }
+    return Long.parseLong(size.trim()) * factor;
+  }
+
+  private void open() throws IOException {
+    if (logFile == null) {
+      throw new IOException("FileAppender needs a 'file' property");
+    }
+    buffer = ByteBuffer.allocateDirect(Math.max(bufferSize, 64));
+    openFile();
     if (rotationUnit != null) {
       registerRotationTask();
     }
+    if (!immediateFlush && flushInterval > 0) {
+      flushTask = new FlushTask();
+      ROTATION_TIMER.scheduleAtFixedRate(flushTask, flushInterval, flushInterval);
+    }
+  }
+
+  /**
+   * Open the active file. Called while holding the lock of the appender.
+   */
+  private void openFile() throws IOException {
+    channel = openChannel(new File(logFile));
+    size = startChannel(channel);
+  }
+
+  /**
+   * Cut off what cannot be appended to and start the file that the channel was opened for
+   *
+   * @return the size of the file
+   */
+  private long startChannel(FileChannel opened) throws IOException {
+    long length = opened.size();
+    if (length > 0) {
+      long end = getAppendPosition(new File(logFile), length);
+      if (end < length) {
+        opened.truncate(end);
+        length = end;
+      }
+    }
+    return length + startFile(length == 0);
+  }
+
+  private static FileChannel openChannel(File file) throws IOException {
+    return FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.APPEND);
+  }
+
+  @Override
+  public void log(Message msg) {
+    if (super.getOutputStream() != null) {
+      // a stream was set with the deprecated setOutputStream
+      super.log(msg);
+      return;
+    }
+    if (isEnabled(msg.getLevel())) {
+      StringBuilder out = acquireBuffer();
+      try {
+        formatMessage(msg, out);
+        out.append(System.lineSeparator());
+        boolean full;
+        synchronized (this) {
+          if (closed) {
+            return;
+          }
+          if (channel == null) {
+            // a rotation could not open the active file again
+            openFile();
+          }
+          int count = encode(msg, out);
+          size += count;
+          addBytes(msg, count);
+          if (immediateFlush || buffer.position() >= flushSize
+              || msg.getLevel().ordinal() <= flushLevel.ordinal()) {
+            flush();
+          }
+          full = maxSize > 0 && size >= maxSize && !rotating;
+        }
+        if (full) {
+          rotateFile(false);
+        }
+      } catch (IOException ex) {
+        addFailure();
+        System.err.println("Could not write to log file " + logFile);
+        ex.printStackTrace();
+      } finally {
+        releaseBuffer(out);
+      }
+    }
+  }
+
+  /**
+   * Write a message to the buffer. Called while holding the lock of the appender, in the order the
+   * messages are written to the file.
+   *
+   * @param formatted the message formatted by {@link #formatMessage(Message, StringBuilder)}
+   * @return the number of bytes written
+   */
+  protected int encode(Message msg, StringBuilder formatted) throws IOException {
+    // write whole lines, so the appenders that share the file during a reload do not mix them.
+    // A character takes at most 3 bytes, only a line that is larger than the buffer is split.
+    if (buffer.position() > 0 && buffer.remaining() < formatted.length() * 3 + 4) {
+      write();
+    }
+    return Utf8Encoder.encode(formatted, buffer, sink);
+  }
+
+  /**
+   * Called while holding the lock of the appender when a file is opened, before any message is
+   * written to it. Subclasses can write a header with {@link #writeBytes(byte[], int)}.
+   *
+   * @param empty whether the file is new or empty, otherwise messages are appended to it
+   * @return the number of bytes written
+   */
+  protected int startFile(boolean empty) throws IOException {
+    return 0;
+  }
+
+  /**
+   * Called while holding the lock of the appender when an existing file is opened. Subclasses with
+   * records that must stay aligned can cut off a record that was only partly written when the
+   * application stopped.
+   *
+   * @return the position in the file after which messages are appended, at most its size
+   */
+  protected long getAppendPosition(File file, long size) throws IOException {
+    return size;
+  }
+
+  /**
+   * Write bytes to the buffer, which is written to the file when it is full. Only call this while
+   * holding the lock of the appender.
+   */
+  protected void writeBytes(byte[] bytes, int length) throws IOException {
+    int offset = 0;
+    while (offset < length) {
+      if (!buffer.hasRemaining()) {
+        write();
+      }
+      int count = Math.min(buffer.remaining(), length - offset);
+      buffer.put(bytes, offset, count);
+      offset += count;
+    }
+  }
+
+  private void write() throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  /**
+   * Write the buffered messages to the file
+   */
+  public synchronized void flush() throws IOException {
+    if (channel != null && buffer.position() > 0) {
+      write();
+      if (force) {
+        channel.force(false);
+      }
+    }
+  }
+
+  @Override
+  public synchronized void close() {
+    closed = true;
+    if (rotationTask != null) {
+      rotationTask.cancel();
+      rotationTask = null;
+    }
+    if (flushTask != null) {
+      flushTask.cancel();
+      flushTask = null;
+    }
+    if (channel != null) {
+      try {
+        flush();
+        channel.close();
+      } catch (IOException ex) {
+        System.err.println("Could not close log file " + logFile);
+        ex.printStackTrace();
+      }
+      channel = null;
+    }
+    // closes a stream set with the deprecated setOutputStream
+    super.close();
+    // the timer keeps cancelled tasks, and the appender they refer to, until it purges them
+    buffer = null;
+    ROTATION_TIMER.purge();
   }
 
   private void initCurrentPostfix() {
@@ -68,7 +421,8 @@ public class FileAppender extends PrintStreamAppender {
     initCurrentPostfix();
     long firstDelay = rotationUnit.getDuration().toMillis()
         - (System.currentTimeMillis() % rotationUnit.getDuration().toMillis());
-    ROTATION_TIMER.scheduleAtFixedRate(new RotationTask(), firstDelay,
+    rotationTask = new RotationTask();
+    ROTATION_TIMER.scheduleAtFixedRate(rotationTask, firstDelay,
         rotationUnit.getDuration().toMillis());
   }
 
@@ -79,7 +433,7 @@ public class FileAppender extends PrintStreamAppender {
     @Override
     public void run() {
       try {
-        rotateFile();
+        rotateFile(true);
       } catch (IOException e) {
         System.err.println("Unexpected failure during log file rotation ");
         e.printStackTrace();
@@ -87,20 +441,188 @@ public class FileAppender extends PrintStreamAppender {
     }
   }
 
-  private synchronized void rotateFile() throws IOException {
-    if (getOutputStream() != null) {
-      getOutputStream().close();
+  /**
+   * Internal TimerTask that flushes the buffer periodically.
+   */
+  private class FlushTask extends TimerTask {
+    @Override
+    public void run() {
+      try {
+        flush();
+      } catch (IOException e) {
+        System.err.println("Unexpected failure while flushing log file " + logFile);
+        e.printStackTrace();
+      }
+    }
+  }
+
+  /**
+   * Rotate the log file without blocking the logging threads during the file system operations.
+   * The active file is renamed while the writers keep writing to it through the open channel. Then
+   * a new file is opened and only flushing the buffer to the old channel and swapping the channels
+   * happens while holding the lock of the writers. Closing the old channel happens afterwards.
+   */
+  private void rotateFile(boolean newPeriod) throws IOException {
+    File active = new File(logFile);
+    File to;
+    synchronized (this) {
+      periodEnded |= newPeriod;
+      if (rotating || closed || channel == null) {
+        return;
+      }
+      rotating = true;
+      to = nextArchiveFile(active);
+    }
+    boolean renamed = false;
+    FileChannel old = null;
+    try {
+      if (!active.renameTo(to)) {
+        // some file systems do not allow renaming an open file
+        rotateFileBlocking(active, to);
+        return;
+      }
+      renamed = true;
+      FileChannel next;
+      try {
+        next = openChannel(active);
+      } catch (IOException ex) {
+        // the writers must not keep writing to the renamed file: the next message opens it again
+        synchronized (this) {
+          old = channel;
+          try {
+            flush();
+          } finally {
+            channel = null;
+          }
+        }
+        throw ex;
+      }
+      synchronized (this) {
+        if (closed) {
+          next.close();
+          return;
+        }
+        flush();
+        old = channel;
+        channel = next;
+        size = startChannel(next);
+      }
+      if (force) {
+        old.force(false);
+      }
+    } finally {
+      synchronized (this) {
+        if (periodEnded) {
+          initCurrentPostfix();
+          periodEnded = false;
+        }
+        rotating = false;
+      }
+      try {
+        if (old != null) {
+          old.close();
+        }
+      } finally {
+        if (renamed) {
+          archive(to);
+        }
+      }
     }
+  }
 
-    File copy = new File(logFile);
-    if (copy.exists()) {
-      File to = new File(copy.getParentFile(), copy.getName() + currentPostfix);
-      if (!copy.renameTo(to)) {
-        throw new IOException("Could not rename logfile " + logFile + " for rotation");
+  private synchronized void rotateFileBlocking(File active, File to) throws IOException {
+    if (closed) {
+      return;
+    }
+    flush();
+    channel.close();
+    // when opening the file fails the next message tries again
+    channel = null;
+    boolean exists = active.exists();
+    boolean renamed = exists && active.renameTo(to);
+    try {
+      openFile();
+    } finally {
+      if (renamed) {
+        archive(to);
+      }
+    }
+    if (exists && !renamed) {
+      throw new IOException("Could not rename logfile " + logFile + " for rotation");
+    }
+  }
+
+  /**
+   * @return the file to rename the active file to. Files rotated on size get the index after the
+   *         highest index of the period, so the index keeps increasing after old files are deleted.
+   */
+  private File nextArchiveFile(File file) {
+    String name = file.getName() + (currentPostfix != null ? currentPostfix : "");
+    if (maxSize <= 0) {
+      return new File(file.getParentFile(), name);
+    }
+    Pattern indexed = Pattern.compile(Pattern.quote(name) + "\\.(\\d+)(\\.gz)?");
+    String[] names = file.getAbsoluteFile().getParentFile().list();
+    int last = 0;
+    if (names != null) {
+      for (String candidate : names) {
+        Matcher matcher = indexed.matcher(candidate);
+        if (matcher.matches()) {
+          last = Math.max(last, Integer.parseInt(matcher.group(1)));
+        }
+      }
+    }
+    return new File(file.getParentFile(), name + "." + (last + 1));
+  }
+
+  private void archive(File rotated) {
+    if (compress || maxHistory > 0 || totalSizeCap > 0) {
+      File active = new File(logFile).getAbsoluteFile();
+      ARCHIVER.execute(() -> {
+        try {
+          if (compress && rotated.exists()) {
+            compress(rotated);
+          }
+          cleanUp(active);
+        } catch (IOException ex) {
+          System.err.println("Unexpected failure while archiving " + rotated);
+          ex.printStackTrace();
+        }
+      });
+    }
+  }
+
+  private static void compress(File file) throws IOException {
+    File tmp = new File(file.getPath() + ".gz.tmp");
+    try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(tmp.toPath()))) {
+      Files.copy(file.toPath(), out);
+    }
+    Files.move(tmp.toPath(), new File(file.getPath() + ".gz").toPath(),
+        StandardCopyOption.REPLACE_EXISTING);
+    Files.delete(file.toPath());
+  }
+
+  /**
+   * Delete the oldest rotated files until at most maxHistory files and totalSizeCap bytes remain
+   */
+  private void cleanUp(File active) throws IOException {
+    Pattern archived = Pattern.compile(Pattern.quote(active.getName()) + ROTATED_SUFFIX);
+    File[] rotated = active.getParentFile()
+        .listFiles(file -> archived.matcher(file.getName()).matches());
+    if (rotated == null) {
+      return;
+    }
+    Arrays.sort(rotated,
+        Comparator.comparingLong(File::lastModified)
+            .thenComparingInt(file -> file.getName().length()).thenComparing(File::getName)
+            .reversed());
+    long total = 0;
+    for (int i = 0; i < rotated.length; ++i) {
+      total += rotated[i].length();
+      if ((maxHistory > 0 && i >= maxHistory) || (totalSizeCap > 0 && total > totalSizeCap)) {
+        Files.deleteIfExists(rotated[i].toPath());
       }
-      setOutputStream(new PrintStream(new FileOutputStream(logFile)));
     }
-    initCurrentPostfix();
   }
 
 }
@@ -0,0 +1,51 @@
+package com.palisand.bones.log;
+
+import java.io.IOException;
+import java.util.Properties;
+
+/**
+ * Decides whether a message is passed to the appenders. Filters are configured per logger like
+ * appenders and apply to the logger and all its children. They are called after the level check by
+ * every thread that logs, so they must be thread safe and should not block.
+ */
+public abstract class Filter {
+
+  /**
+   * @return false when the message should not be written
+   */
+  public abstract boolean accept(Message msg);
+
+  /**
+   * @return true when this filter needs the location of the log statement
+   */
+  public boolean isLocationRequired() {
+    return false;
+  }
+
+  /**
+   * @return true when this filter keeps messages after {@link #accept(Message)} returns. Messages
+   *         are not reused for loggers with such filters.
+   */
+  public boolean isMessageRetained() {
+    return false;
+  }
+
+  /**
+   * Release the resources of this filter
+   */
+  public void close() {}
+
+  protected void initProperty(Properties properties, String name,
+      Appender.ThrowingConsumer setter) {
+    Appender.applyProperty(properties, name, setter);
+  }
+
+  public void init(Properties properties) throws IOException {}
+
+  static Filter create(String className, Properties properties)
+      throws ReflectiveOperationException, IOException {
+    Filter filter = (Filter) Class.forName(className).getConstructor().newInstance();
+    filter.init(properties);
+    return filter;
+  }
+}
@@ -0,0 +1,69 @@
+package com.palisand.bones.log;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.util.Properties;
+
+/**
+ * Appender that writes every message as one JSON object per line to System.out. The JSON is
+ * encoded as UTF-8 into a reusable byte buffer, so no strings are created for the formatted
+ * message. Other appenders can write JSON as well by setting their 'layout' property to 'json'.
+ */
+public class JsonAppender extends PrintStreamAppender {
+  private final ByteBuffer buffer = ByteBuffer.allocate(8192);
+  private final Utf8Encoder.Sink<RuntimeException> sink = this::drain;
+  // a PrintStream keeps its error until it is closed, so it is reported once
+  private boolean failing = false;
+
+  public JsonAppender() {
+    this(System.out);
+  }
+
+  public JsonAppender(PrintStream stream) {
+    super(stream);
+    setLayout(JSON_LAYOUT);
+  }
+
+  @Override
+  public void init(Properties properties) throws IOException {
+    super.init(properties);
+    if (!properties.containsKey("layout")) {
+      // a format inherited from the logger configuration should not replace the JSON layout
+      setLayout(JSON_LAYOUT);
+    }
+  }
+
+  @Override
+  public void log(Message msg) {
+    if (isEnabled(msg.getLevel())) {
+      StringBuilder out = acquireBuffer();
+      try {
+        formatMessage(msg, out);
+        out.append(System.lineSeparator());
+        synchronized (this) {
+          addBytes(msg, Utf8Encoder.encode(out, buffer, sink));
+          drain(buffer);
+          PrintStream stream = getOutputStream();
+          stream.flush();
+          // a PrintStream does not throw when writing fails
+          if (stream.checkError()) {
+            addFailure();
+            if (!failing) {
+              failing = true;
+              System.err.println("Could not write JSON message");
+            }
+          }
+        }
+      } finally {
+        releaseBuffer(out);
+      }
+    }
+  }
+
+  private void drain(ByteBuffer bytes) {
+    getOutputStream().write(bytes.array(), 0, bytes.position());
+    bytes.clear();
+  }
+
+}
@@ -0,0 +1,149 @@
+package com.palisand.bones.log;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Map.Entry;
+
+/**
+ * Writes a message as one JSON object. The fields added with {@link Message#with(String, Object)}
+ * become members of the object next to timestamp, level, logger, location, message and throwable.
+ * The values of the {@link LogContext} are written as a nested 'context' object. Fields with the
+ * name of one of these members get the prefix 'field.', so the object has no duplicate names.
+ * Numbers and booleans are written as JSON values, all other values as strings.
+ */
+final class JsonLayout {
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+  static final String FIELD_PREFIX = "field.";
+
+  private JsonLayout() {}
+
+  static void append(StringBuilder out, Message msg, boolean includeLocation) {
+    out.append("{\"timestamp\":\"");
+    TimestampRenderer.DATE.append(out, msg.getEpochSecond(), msg.getNano());
+    out.append('T');
+    TimestampRenderer.TIME.append(out, msg.getEpochSecond(), msg.getNano());
+    out.append("Z\",\"level\":\"").append(msg.getLevel().name());
+    out.append("\",\"logger\":");
+    appendString(out, msg.getLogger().getName());
+    if (includeLocation) {
+      out.append(",\"location\":");
+      appendString(out, msg.getLocation());
+    }
+    out.append(",\"message\":");
+    appendString(out, msg.getMessage());
+    for (int i = 0; i < msg.getFieldCount(); ++i) {
+      out.append(',');
+      String name = msg.getFieldName(i);
+      appendString(out, isReserved(name) ? FIELD_PREFIX + name : name);
+      out.append(':');
+      appendField(out, msg, i);
+    }
+    if (!msg.getContext().isEmpty()) {
+      out.append(",\"context\":{");
+      boolean first = true;
+      for (Entry<String, String> entry : msg.getContext().entrySet()) {
+        if (!first) {
+          out.append(',');
+        }
+        appendString(out, entry.getKey());
+        out.append(':');
+        appendString(out, entry.getValue());
+        first = false;
+      }
+      out.append('}');
+    }
+    if (msg.getThrowable() != null) {
+      StringWriter trace = new StringWriter();
+      try (PrintWriter writer = new PrintWriter(trace)) {
+        msg.getThrowable().printStackTrace(writer);
+      }
+      out.append(",\"throwable\":");
+      appendString(out, trace.getBuffer());
+    }
+    out.append('}');
+  }
+
+  private static boolean isReserved(String name) {
+    return switch (name) {
+      case "timestamp", "level", "logger", "location", "message", "context", "throwable" -> true;
+      default -> false;
+    };
+  }
+
+  /**
+   * Append the value of a field, primitive values without boxing them
+   */
+  private static void appendField(StringBuilder out, Message msg, int index) {
+    long bits = msg.getFieldBits(index);
+    switch (msg.getFieldType(index)) {
+      case OBJECT -> appendValue(out, msg.getFieldValue(index));
+      case LONG, BOOLEAN -> msg.appendFieldValue(out, index);
+      case DOUBLE -> appendNumber(out, Double.longBitsToDouble(bits));
+      case FLOAT -> appendNumber(out, Float.intBitsToFloat((int) bits));
+      case CHAR -> appendString(out, String.valueOf((char) bits));
+    }
+  }
+
+  private static void appendNumber(StringBuilder out, double number) {
+    if (Double.isFinite(number)) {
+      out.append(number);
+    } else {
+      appendString(out, Double.toString(number));
+    }
+  }
+
+  private static void appendNumber(StringBuilder out, float number) {
+    if (Float.isFinite(number)) {
+      out.append(number);
+    } else {
+      appendString(out, Float.toString(number));
+    }
+  }
+
+  static void appendValue(StringBuilder out, Object value) {
+    if (value == null) {
+      out.append("null");
+    } else if (value instanceof Boolean || value instanceof Integer || value instanceof Long
+        || value instanceof Short || value instanceof Byte || value instanceof BigInteger
+        || value instanceof BigDecimal) {
+      out.append(value);
+    } else if (value instanceof Double number && Double.isFinite(number)) {
+      out.append(number.doubleValue());
+    } else if (value instanceof Float number && Float.isFinite(number)) {
+      out.append(number.floatValue());
+    } else {
+      appendString(out, value instanceof CharSequence chars ? chars : value.toString());
+    }
+  }
+
+  static void appendString(StringBuilder out, CharSequence value) {
+    if (value == null) {
+      out.append("null");
+      return;
+    }
+    out.append('"');
+    for (int i = 0; i < value.length(); ++i) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '"' -> out.append("\\\"");
+        case '\\' -> out.append("\\\\");
+        case '\n' -> out.append("\\n");
+        case '\r' -> out.append("\\r");
+        case '\t' -> out.append("\\t");
+        case '\b' -> out.append("\\b");
+        case '\f' -> out.append("\\f");
+        default -> {
+          if (c < 0x20 || c == 0x2028 || c == 0x2029) {
+            out.append("\\u").append(HEX[c >> 12 & 0xf]).append(HEX[c >> 8 & 0xf])
+                .append(HEX[c >> 4 & 0xf]).append(HEX[c & 0xf]);
+          } else {
+            out.append(c);
+          }
+        }
+      }
+    }
+    out.append('"');
+  }
+}
@@ -0,0 +1,54 @@
+package com.palisand.bones.log;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of durations in nanoseconds with a bucket for every power of two. Recording a value is
+ * an increment of a LongAdder, so threads do not contend. Percentiles are reported as the upper
+ * bound of their bucket, so they are at most twice the real value.
+ */
+final class LatencyHistogram {
+  private final LongAdder[] buckets = new LongAdder[Long.SIZE];
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+  LatencyHistogram() {
+    for (int i = 0; i < buckets.length; ++i) {
+      buckets[i] = new LongAdder();
+    }
+  }
+
+  void record(long nanos) {
+    if (nanos < 0) {
+      nanos = 0;
+    }
+    buckets[Long.SIZE - Long.numberOfLeadingZeros(nanos)].increment();
+    max.accumulate(nanos);
+  }
+
+  long getMax() {
+    return max.get();
+  }
+
+  /**
+   * @return the upper bound of the bucket that contains the given fraction of the values, or 0 when
+   *         nothing was recorded
+   */
+  long getPercentile(double fraction) {
+    long[] counts = new long[buckets.length];
+    long total = 0;
+    for (int i = 0; i < buckets.length; ++i) {
+      counts[i] = buckets[i].sum();
+      total += counts[i];
+    }
+    long target = (long) Math.ceil(fraction * total);
+    long cumulative = 0;
+    for (int i = 0; i < counts.length; ++i) {
+      cumulative += counts[i];
+      if (cumulative >= target && cumulative > 0) {
+        return i == 0 ? 0 : (1L << i) - 1;
+      }
+    }
+    return 0;
+  }
+}
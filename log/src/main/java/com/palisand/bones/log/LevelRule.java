@@ -0,0 +1,140 @@
+package com.palisand.bones.log;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import lombok.Getter;
+
+/**
+ * Enables a more detailed level for the messages of a logger and its children that have certain
+ * values in the context of the thread, like DEBUG for one tenant. A rule matches when every
+ * condition matches: the context value with the name of the condition must have one of the values
+ * of the condition. The level a thread gets from the rules is determined again when its context
+ * changes, so {@link Logger#isEnabled(Level)} stays a cheap check.
+ *
+ * <p>
+ * With 'matchFields' a condition also matches the field with its name, which takes precedence over
+ * the context. Fields are only known when a message is logged, so such a rule only applies to
+ * statements that are checked when they are logged, like {@code LOG.log("text").debug()}. It is
+ * not seen by {@link Logger#isEnabled(Level)} and the level methods like {@code LOG.debug(text)}.
+ *
+ * <pre>
+ * bones.log.com.example.levelRules=acme
+ * bones.log.com.example.acme.level=DEBUG
+ * bones.log.com.example.acme.match.tenant=acme
+ * bones.log.com.example.acme.match.requestId=17,18
+ * </pre>
+ */
+@Getter
+public class LevelRule {
+  private static final String MATCH_PREFIX = "match.";
+  private static final String MATCH_FIELDS = "matchFields";
+  private final Level level;
+  private final Map<String, Set<String>> conditions;
+  private final boolean matchFields;
+
+  /**
+   * Create a rule that matches the context of the thread
+   */
+  public LevelRule(Level level, Map<String, ? extends Collection<String>> conditions) {
+    this(level, conditions, false);
+  }
+
+  /**
+   * Create a rule that matches the fields of a message as well when matchFields is true
+   */
+  public LevelRule(Level level, Map<String, ? extends Collection<String>> conditions,
+      boolean matchFields) {
+    if (level == null) {
+      throw new IllegalArgumentException("A level rule needs a level");
+    }
+    if (conditions.isEmpty()) {
+      throw new IllegalArgumentException("A level rule needs at least one condition");
+    }
+    TreeMap<String, Set<String>> copy = new TreeMap<>();
+    conditions.forEach((name, values) -> copy.put(name, Set.copyOf(values)));
+    this.level = level;
+    this.conditions = Collections.unmodifiableMap(copy);
+    this.matchFields = matchFields;
+  }
+
+  /**
+   * Create a rule with a single condition on the context
+   */
+  public LevelRule(Level level, String name, String... values) {
+    this(level, Map.of(name, Set.of(values)));
+  }
+
+  /**
+   * @return true when the context has the values of all conditions
+   */
+  public boolean matches(Map<String, String> context) {
+    for (Entry<String, Set<String>> condition : conditions.entrySet()) {
+      String value = context.get(condition.getKey());
+      if (value == null || !condition.getValue().contains(value)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return true when the context of the message, or its fields when the rule matches fields, have
+   *         the values of all conditions
+   */
+  public boolean matches(Message msg) {
+    if (!matchFields) {
+      return matches(msg.getContext());
+    }
+    for (Entry<String, Set<String>> condition : conditions.entrySet()) {
+      String value = getValue(msg, condition.getKey());
+      if (value == null || !condition.getValue().contains(value)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static String getValue(Message msg, String name) {
+    int index = msg.indexOfField(name);
+    if (index >= 0) {
+      Object value = msg.getFieldValue(index);
+      return value != null ? value.toString() : null;
+    }
+    return msg.getContext().get(name);
+  }
+
+  /**
+   * Create a rule from the 'level' property, a 'match.name' property with comma separated values
+   * for every condition and the optional 'matchFields' property
+   */
+  static LevelRule create(Properties properties) {
+    String level = properties.getProperty("level");
+    if (level == null) {
+      throw new IllegalArgumentException("A level rule needs a level");
+    }
+    Map<String, Set<String>> conditions = new TreeMap<>();
+    for (String key : properties.stringPropertyNames()) {
+      if (key.startsWith(MATCH_PREFIX)) {
+        Set<String> values = new HashSet<>();
+        for (String value : properties.getProperty(key).split(",")) {
+          values.add(value.trim());
+        }
+        conditions.put(key.substring(MATCH_PREFIX.length()), values);
+      }
+    }
+    String fields = properties.getProperty(MATCH_FIELDS);
+    return new LevelRule(Level.valueOf(level.trim()), conditions,
+        fields != null && Boolean.parseBoolean(fields.trim()));
+  }
+
+  @Override
+  public String toString() {
+    return level + " when " + (matchFields ? "fields or context " : "context ") + conditions;
+  }
+}
@@ -0,0 +1,65 @@
+package com.palisand.bones.log;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Values that are added to every message logged by the current thread, like a request id. The
+ * values of a thread are kept in an immutable map that is replaced when a value changes. A message
+ * keeps a reference to the map of its thread, so logging does not copy anything and a message that
+ * is written by another thread later on still shows the values at the time it was logged.
+ */
+public final class LogContext {
+  private static final SortedMap<String, String> EMPTY = Collections.emptySortedMap();
+  private static final ThreadLocal<SortedMap<String, String>> CURRENT = new ThreadLocal<>();
+
+  private LogContext() {}
+
+  /**
+   * @return the values of the current thread. The map is immutable and does not change when values
+   *         are added or removed later on.
+   */
+  public static SortedMap<String, String> getMap() {
+    SortedMap<String, String> map = CURRENT.get();
+    return map == null ? EMPTY : map;
+  }
+
+  /**
+   * Replace the values of the current thread with a copy of the given map
+   */
+  public static void setMap(Map<String, String> values) {
+    if (values == null || values.isEmpty()) {
+      CURRENT.remove();
+    } else {
+      CURRENT.set(Collections.unmodifiableSortedMap(new TreeMap<>(values)));
+    }
+  }
+
+  public static String get(String key) {
+    return getMap().get(key);
+  }
+
+  public static void put(String key, String value) {
+    if (key == null) {
+      throw new IllegalArgumentException("key of a context value cannot be null");
+    }
+    TreeMap<String, String> copy = new TreeMap<>(getMap());
+    copy.put(key, value);
+    CURRENT.set(Collections.unmodifiableSortedMap(copy));
+  }
+
+  public static void remove(String key) {
+    SortedMap<String, String> map = getMap();
+    if (map.containsKey(key)) {
+      TreeMap<String, String> copy = new TreeMap<>(map);
+      copy.remove(key);
+      setMap(copy);
+    }
+  }
+
+  public static void clear() {
+    CURRENT.remove();
+  }
+}
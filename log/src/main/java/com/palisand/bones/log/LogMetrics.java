@@ -0,0 +1,205 @@
+package com.palisand.bones.log;
+
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Snapshot of the counters of all loggers and appenders. The counters are LongAdders that are
+ * updated by the logging threads without locking; {@link #snapshot()} sums them.
+ *
+ * <p>
+ * The same numbers are available in JMX as {@value #OBJECT_NAME} after
+ * {@link #registerMBeans()}, which is called when the system property or the configuration
+ * property 'bones.log.jmx' is true.
+ */
+@Getter
+public final class LogMetrics {
+  public static final String OBJECT_NAME = "com.palisand.bones.log:type=LogMetrics";
+
+  private final Instant timestamp;
+  private final List<LoggerStats> loggers;
+  private final List<AppenderStats> appenders;
+
+  /**
+   * The counters of a logger. Only loggers that logged messages are part of a snapshot.
+   */
+  @Getter
+  @AllArgsConstructor(access = AccessLevel.PACKAGE)
+  public static final class LoggerStats {
+    private final String name;
+    /** messages passed to the appenders */
+    private final long accepted;
+    /** messages dropped by a filter */
+    private final long filtered;
+  }
+
+  /**
+   * The counters of an appender. The name is the name of the logger it belongs to, or 'root', and
+   * the class of the appender. Wrapped appenders get the name of their wrapper followed by '>' and
+   * their class.
+   */
+  @Getter
+  @AllArgsConstructor(access = AccessLevel.PACKAGE)
+  public static final class AppenderStats {
+    private final String name;
+    private final String type;
+    private final long messages;
+    /** bytes written, or characters when printed to a PrintStream, which hides the encoding */
+    private final long bytes;
+    private final long failures;
+    private final long dropped;
+    private final int queueSize;
+    /** the duration of the log method in nanoseconds for half of the messages */
+    private final long latencyMedian;
+    /** the duration of the log method in nanoseconds for 99 percent of the messages */
+    private final long latency99;
+    private final long latencyMax;
+  }
+
+  private LogMetrics(List<LoggerStats> loggers, List<AppenderStats> appenders) {
+    timestamp = Instant.now();
+    this.loggers = Collections.unmodifiableList(loggers);
+    this.appenders = Collections.unmodifiableList(appenders);
+  }
+
+  public static LogMetrics snapshot() {
+    List<LoggerStats> loggerStats = new ArrayList<>();
+    List<AppenderStats> appenderStats = new ArrayList<>();
+    Map<Appender, Boolean> seen = new IdentityHashMap<>();
+    for (Logger logger : Logger.getAllLoggers()) {
+      long accepted = logger.getAcceptedCount();
+      long filtered = logger.getFilteredCount();
+      if (accepted != 0 || filtered != 0) {
+        loggerStats.add(new LoggerStats(nameOf(logger), accepted, filtered));
+      }
+      List<Appender> own = logger.getOwnAppenders();
+      for (int i = 0; i < own.size(); ++i) {
+        String name = nameOf(logger) + ':' + own.get(i).getClass().getSimpleName();
+        add(appenderStats, seen, own.get(i), own.size() > 1 ? name + '#' + i : name);
+      }
+    }
+    return new LogMetrics(loggerStats, appenderStats);
+  }
+
+  private static String nameOf(Logger logger) {
+    return logger.getName().isEmpty() ? "root" : logger.getName();
+  }
+
+  private static void add(List<AppenderStats> result, Map<Appender, Boolean> seen,
+      Appender appender, String name) {
+    if (seen.put(appender, Boolean.TRUE) != null) {
+      return;
+    }
+    AppenderMetrics metrics = appender.getMetrics();
+    result.add(new AppenderStats(name, appender.getClass().getName(), metrics.messages.sum(),
+        metrics.bytes.sum(), metrics.failures.sum(), appender.getDroppedCount(),
+        appender.getQueueSize(), metrics.latency.getPercentile(0.5),
+        metrics.latency.getPercentile(0.99), metrics.latency.getMax()));
+    Appender delegate = appender.getDelegate();
+    if (delegate != null) {
+      add(result, seen, delegate, name + '>' + delegate.getClass().getSimpleName());
+    }
+  }
+
+  public long getAcceptedCount() {
+    return loggers.stream().mapToLong(LoggerStats::getAccepted).sum();
+  }
+
+  public long getFilteredCount() {
+    return loggers.stream().mapToLong(LoggerStats::getFiltered).sum();
+  }
+
+  public long getMessageCount() {
+    return appenders.stream().mapToLong(AppenderStats::getMessages).sum();
+  }
+
+  public long getByteCount() {
+    return appenders.stream().mapToLong(AppenderStats::getBytes).sum();
+  }
+
+  public long getFailureCount() {
+    return appenders.stream().mapToLong(AppenderStats::getFailures).sum();
+  }
+
+  public long getDroppedCount() {
+    return appenders.stream().mapToLong(AppenderStats::getDropped).sum();
+  }
+
+  private static class MBean implements LogMetricsMXBean {
+
+    @Override
+    public long getAcceptedCount() {
+      return snapshot().getAcceptedCount();
+    }
+
+    @Override
+    public long getFilteredCount() {
+      return snapshot().getFilteredCount();
+    }
+
+    @Override
+    public long getMessageCount() {
+      return snapshot().getMessageCount();
+    }
+
+    @Override
+    public long getByteCount() {
+      return snapshot().getByteCount();
+    }
+
+    @Override
+    public long getFailureCount() {
+      return snapshot().getFailureCount();
+    }
+
+    @Override
+    public long getDroppedCount() {
+      return snapshot().getDroppedCount();
+    }
+
+    @Override
+    public List<LoggerStats> getLoggers() {
+      return snapshot().getLoggers();
+    }
+
+    @Override
+    public List<AppenderStats> getAppenders() {
+      return snapshot().getAppenders();
+    }
+  }
+
+  /**
+   * Register the metrics and the {@link LogProfiler} in the platform MBean server. This is not done
+   * by default, because it starts the MBean server in applications that do not use JMX.
+   */
+  public static void registerMBeans() {
+    register(OBJECT_NAME, new MBean());
+    LogProfiler.register();
+  }
+
+  /**
+   * Register a bean in the platform MBean server, unless it is registered already
+   */
+  static void register(String objectName, Object bean) {
+    try {
+      ObjectName name = new ObjectName(objectName);
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      if (!server.isRegistered(name)) {
+        server.registerMBean(bean, name);
+      }
+    } catch (Exception | LinkageError ex) {
+      // logging works without JMX, for instance when the java.management module is missing
+      System.err.println("Could not register " + objectName + " in JMX: " + ex);
+    }
+  }
+}
@@ -0,0 +1,26 @@
+package com.palisand.bones.log;
+
+import java.util.List;
+
+/**
+ * The metrics of bones-log in JMX, registered as {@value LogMetrics#OBJECT_NAME} by
+ * {@link LogMetrics#registerMBeans()}
+ */
+public interface LogMetricsMXBean {
+
+  long getAcceptedCount();
+
+  long getFilteredCount();
+
+  long getMessageCount();
+
+  long getByteCount();
+
+  long getFailureCount();
+
+  long getDroppedCount();
+
+  List<LogMetrics.LoggerStats> getLoggers();
+
+  List<LogMetrics.AppenderStats> getAppenders();
+}
@@ -0,0 +1,295 @@
+package com.palisand.bones.log;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Counts the messages and the bytes the appenders wrote for every log statement, to find the
+ * statements that are responsible for most of the log volume. A statement is identified by its
+ * location and logger. Profiling is off by default, because the location of every message has to
+ * be determined.
+ *
+ * <pre>
+ * bones.log.profile=true
+ * bones.log.profileInterval=600000
+ * bones.log.profileTop=10
+ * </pre>
+ *
+ * The counters are LongAdders in a concurrent map, so threads that log do not wait for each other.
+ * The largest statements are available with {@link #getTopLocations(int)}, in JMX as
+ * {@value #OBJECT_NAME} after {@link LogMetrics#registerMBeans()} and, when 'profileInterval' is
+ * set, as INFO messages every 'profileInterval' milliseconds. Appenders that write to a
+ * PrintStream count characters instead of bytes.
+ */
+public final class LogProfiler {
+  public static final String OBJECT_NAME = "com.palisand.bones.log:type=LogProfiler";
+  static final String PROFILE = "profile";
+  static final String PROFILE_INTERVAL = "profileInterval";
+  static final String PROFILE_TOP = "profileTop";
+  private static final int MAX_LOCATIONS = 10_000;
+  // used when there are too many statements to count each of them
+  private static final Site OTHER = new Site("other", "");
+  private static final ConcurrentHashMap<String, Site> SITES = new ConcurrentHashMap<>();
+  private static volatile boolean enabled = false;
+  private static volatile int top = 10;
+  private static long summaryInterval = 0;
+  private static TimerTask summaryTask = null;
+
+  /**
+   * The thread that logs the summaries, only started when a summary interval is set
+   */
+  private static final class SummaryTimer {
+    private static final Timer TIMER = new Timer("bones-log-profiler", true);
+  }
+
+  /**
+   * The counters of one log statement
+   */
+  static final class Site {
+    private final String location;
+    private final String logger;
+    private final LongAdder messages = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+
+    Site(String location, String logger) {
+      this.location = location;
+      this.logger = logger;
+    }
+  }
+
+  /**
+   * The volume of a log statement
+   */
+  @Getter
+  @AllArgsConstructor(access = AccessLevel.PACKAGE)
+  public static final class LocationVolume {
+    private final String location;
+    private final String logger;
+    private final long messages;
+    private final long bytes;
+  }
+
+  /**
+   * The volume of all statements of a logger
+   */
+  @Getter
+  @AllArgsConstructor(access = AccessLevel.PACKAGE)
+  public static final class LoggerVolume {
+    private final String logger;
+    private final long messages;
+    private final long bytes;
+  }
+
+  private LogProfiler() {}
+
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Start or stop counting. The counts are kept when profiling stops.
+   */
+  public static void setEnabled(boolean enabled) {
+    LogProfiler.enabled = enabled;
+    Logger.reconfigure();
+  }
+
+  public static int getTop() {
+    return top;
+  }
+
+  /**
+   * Set the number of statements and loggers in the summary and in JMX
+   */
+  public static void setTop(int top) {
+    LogProfiler.top = top;
+  }
+
+  public static synchronized long getSummaryInterval() {
+    return summaryInterval;
+  }
+
+  /**
+   * Log the largest statements and loggers at INFO every interval milliseconds, or never when the
+   * interval is 0
+   */
+  public static synchronized void setSummaryInterval(long interval) {
+    if (interval == summaryInterval) {
+      return;
+    }
+    if (summaryTask != null) {
+      summaryTask.cancel();
+      summaryTask = null;
+    }
+    summaryInterval = interval;
+    if (interval > 0) {
+      summaryTask = new TimerTask() {
+        @Override
+        public void run() {
+          logSummary();
+        }
+      };
+      SummaryTimer.TIMER.schedule(summaryTask, interval, interval);
+    }
+  }
+
+  /**
+   * Remove the properties of the profiler and apply them. During a reload absent properties get
+   * their default value.
+   */
+  static void init(Properties properties, boolean reload) {
+    Object profile = properties.remove(PROFILE);
+    Object interval = properties.remove(PROFILE_INTERVAL);
+    Object count = properties.remove(PROFILE_TOP);
+    if (profile != null || reload) {
+      enabled = profile != null && Boolean.parseBoolean(profile.toString().trim());
+    }
+    try {
+      if (count != null || reload) {
+        top = count != null ? Integer.parseInt(count.toString().trim()) : 10;
+      }
+      if (interval != null || reload) {
+        setSummaryInterval(interval != null ? Long.parseLong(interval.toString().trim()) : 0);
+      }
+    } catch (NumberFormatException ex) {
+      Logger.getLogger(LogProfiler.class).log("invalid profiler property").with(ex).warn();
+    }
+  }
+
+  /**
+   * Count a message that is passed to the appenders. The bytes the appenders write for it are
+   * added with {@link #addBytes(Message, long)}.
+   */
+  static void count(Message msg) {
+    String location = msg.getLocation();
+    String logger = msg.getLogger().getName();
+    Site site = SITES.get(location);
+    if (site == null || !site.logger.equals(logger)) {
+      // the same statement can log with different loggers
+      String key = site == null ? location : logger + ' ' + location;
+      site = SITES.get(key);
+      if (site == null) {
+        site = SITES.size() >= MAX_LOCATIONS ? OTHER
+            : SITES.computeIfAbsent(key, k -> new Site(location, logger));
+      }
+    }
+    site.messages.increment();
+    msg.setProfilerSite(site);
+  }
+
+  static void addBytes(Message msg, long count) {
+    Site site = msg.getProfilerSite();
+    if (site != null) {
+      site.bytes.add(count);
+    }
+  }
+
+  private static List<Site> getSites() {
+    List<Site> result = new ArrayList<>(SITES.values());
+    if (OTHER.messages.sum() > 0) {
+      result.add(OTHER);
+    }
+    return result;
+  }
+
+  /**
+   * @return the statements that wrote the most bytes, largest first
+   */
+  public static List<LocationVolume> getTopLocations(int count) {
+    List<LocationVolume> result = new ArrayList<>();
+    for (Site site : getSites()) {
+      result.add(
+          new LocationVolume(site.location, site.logger, site.messages.sum(), site.bytes.sum()));
+    }
+    result.sort(Comparator.comparingLong(LocationVolume::getBytes)
+        .thenComparingLong(LocationVolume::getMessages).reversed());
+    return result.size() > count ? List.copyOf(result.subList(0, count)) : result;
+  }
+
+  /**
+   * @return the loggers whose statements wrote the most bytes, largest first
+   */
+  public static List<LoggerVolume> getTopLoggers(int count) {
+    Map<String, long[]> totals = new HashMap<>();
+    for (Site site : getSites()) {
+      long[] total = totals.computeIfAbsent(site.logger, k -> new long[2]);
+      total[0] += site.messages.sum();
+      total[1] += site.bytes.sum();
+    }
+    List<LoggerVolume> result = new ArrayList<>();
+    totals.forEach((logger, total) -> result.add(new LoggerVolume(logger, total[0], total[1])));
+    result.sort(Comparator.comparingLong(LoggerVolume::getBytes)
+        .thenComparingLong(LoggerVolume::getMessages).reversed());
+    return result.size() > count ? List.copyOf(result.subList(0, count)) : result;
+  }
+
+  /**
+   * Remove all counts
+   */
+  public static void reset() {
+    SITES.clear();
+    OTHER.messages.reset();
+    OTHER.bytes.reset();
+  }
+
+  /**
+   * Log the largest statements and loggers at INFO
+   */
+  public static void logSummary() {
+    // not a constant: this class is initialised while the root logger is created
+    Logger log = Logger.getLogger(LogProfiler.class);
+    int count = top;
+    for (LocationVolume volume : getTopLocations(count)) {
+      log.log("log volume of statement").with("location", volume.getLocation())
+          .with("logger", volume.getLogger()).with("messages", volume.getMessages())
+          .with("bytes", volume.getBytes()).info();
+    }
+    for (LoggerVolume volume : getTopLoggers(count)) {
+      log.log("log volume of logger").with("logger", volume.getLogger())
+          .with("messages", volume.getMessages()).with("bytes", volume.getBytes()).info();
+    }
+  }
+
+  private static class MBean implements LogProfilerMXBean {
+
+    @Override
+    public boolean isEnabled() {
+      return LogProfiler.isEnabled();
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+      LogProfiler.setEnabled(enabled);
+    }
+
+    @Override
+    public List<LocationVolume> getTopLocations() {
+      return LogProfiler.getTopLocations(top);
+    }
+
+    @Override
+    public List<LoggerVolume> getTopLoggers() {
+      return LogProfiler.getTopLoggers(top);
+    }
+
+    @Override
+    public void reset() {
+      LogProfiler.reset();
+    }
+  }
+
+  static void register() {
+    LogMetrics.register(OBJECT_NAME, new MBean());
+  }
+}
@@ -0,0 +1,19 @@
+package com.palisand.bones.log;
+
+import java.util.List;
+
+/**
+ * The log volume profiler in JMX, registered as {@value LogProfiler#OBJECT_NAME}
+ */
+public interface LogProfilerMXBean {
+
+  boolean isEnabled();
+
+  void setEnabled(boolean enabled);
+
+  List<LogProfiler.LocationVolume> getTopLocations();
+
+  List<LogProfiler.LoggerVolume> getTopLoggers();
+
+  void reset();
+}
@@ -5,90 +5,498 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.SortedMap;
+import java.util.Timer;
+import java.util.TimerTask;
 import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 import lombok.Getter;
-import lombok.Setter;
 
 public class Logger {
+  /**
+   * All loggers sorted on name. Creating loggers and changing the configuration is done while
+   * holding the lock of this map.
+   */
   private static final TreeMap<String, Logger> LOGGERS = new TreeMap<>();
+  /**
+   * The same loggers for lookups without locking
+   */
+  private static final ConcurrentHashMap<String, Logger> REGISTRY = new ConcurrentHashMap<>();
+  /**
+   * The logger, class and properties that appenders and filters were created with, so a reload
+   * can keep the ones that did not change. Guarded by the lock of LOGGERS.
+   */
+  private static final Map<Object, String> CREATED = new WeakHashMap<>();
+  private static final String RELOAD_INTERVAL = "reloadInterval";
+  private static final String REUSE_MESSAGES = "reuseMessages";
+  private static final String JMX = "jmx";
+  private static volatile boolean reuseMessages = false;
+  // while larger than 0 the configuration is being changed and the snapshots are not rebuilt
+  private static int batchDepth = 0;
+  // appenders and filters of the previous configuration during a reload
+  private static Map<String, Object> reusable = null;
+  private static ConfigWatcher watcher = null;
+  // milliseconds that replaced appenders and filters stay open after a reload
+  private static final long RETIRE_DELAY = 1000;
+  // replaced appenders and filters waiting to be closed, guarded by the lock of LOGGERS
+  private static final List<Retired> RETIRING = new ArrayList<>();
+  // the number of snapshots with context rules, each has a slot in the levels of every thread,
+  // guarded by the lock of LOGGERS
+  private static int contextSlots;
+  private static final ThreadLocal<ContextLevels> CONTEXT_LEVELS =
+      ThreadLocal.withInitial(ContextLevels::new);
 
   private final static Logger ROOT = new Logger("");
   private static final Logger LOG = Logger.getLogger(Logger.class);
   @Getter
   private final String name;
   @Getter
-  private Logger parent = ROOT;
-  @Setter
+  private volatile Logger parent = ROOT;
   @Getter
   private Level level = null;
-  Message message = null;
   private List<Appender> appenders = null;
+  private List<Filter> filters = null;
+  private List<LevelRule> levelRules = null;
+  private volatile Config config;
+  private final LongAdder accepted = new LongAdder();
+  private final LongAdder filtered = new LongAdder();
+
+  /**
+   * Immutable snapshot of the configuration that applies to a logger, derived from its own
+   * configuration and that of its parents. It is rebuilt whenever the configuration changes, so
+   * logging a message does not have to walk the hierarchy.
+   */
+  private static final class Config {
+    private final Level level;
+    // the most detailed level of the level and the context rules
+    private final Level contextLevel;
+    // the most detailed level of the level and all rules, more detailed messages are never logged
+    private final Level maxLevel;
+    private final LevelRule[] contextRules;
+    private final LevelRule[] fieldRules;
+    // the slot of the snapshot in the context levels of a thread, -1 without context rules
+    private final int slot;
+    private final Appender[] appenders;
+    private final Filter[] filters;
+    private final boolean locationRequired;
+    private final boolean reuse;
+    private final boolean profile;
+
+    Config(Logger logger, Config parent) {
+      Level active = logger.level;
+      if (active == null) {
+        active = parent != null ? parent.level : Level.ALL;
+      }
+      level = active;
+      List<LevelRule> ruleList = new ArrayList<>();
+      if (logger.levelRules != null) {
+        ruleList.addAll(logger.levelRules);
+      }
+      if (parent != null) {
+        ruleList.addAll(List.of(parent.contextRules));
+        ruleList.addAll(List.of(parent.fieldRules));
+      }
+      // rules for levels that are enabled anyway are never checked
+      ruleList.removeIf(rule -> rule.getLevel().ordinal() <= level.ordinal());
+      contextRules = ruleList.stream().filter(rule -> !rule.isMatchFields())
+          .toArray(LevelRule[]::new);
+      fieldRules = ruleList.stream().filter(LevelRule::isMatchFields).toArray(LevelRule[]::new);
+      contextLevel = maxLevel(contextRules, level);
+      maxLevel = maxLevel(fieldRules, contextLevel);
+      slot = contextRules.length > 0 ? contextSlots++ : -1;
+      List<Appender> list = new ArrayList<>();
+      if (logger.appenders != null) {
+        list.addAll(logger.appenders);
+      }
+      if (parent != null) {
+        list.addAll(List.of(parent.appenders));
+      }
+      appenders = list.toArray(new Appender[list.size()]);
+      List<Filter> filterList = new ArrayList<>();
+      if (logger.filters != null) {
+        filterList.addAll(logger.filters);
+      }
+      if (parent != null) {
+        filterList.addAll(List.of(parent.filters));
+      }
+      filters = filterList.toArray(new Filter[filterList.size()]);
+      profile = LogProfiler.isEnabled();
+      locationRequired = profile
+          || list.stream().anyMatch(appender -> appender.isLocationRequired())
+          || filterList.stream().anyMatch(filter -> filter.isLocationRequired());
+      reuse = reuseMessages && list.stream().noneMatch(appender -> appender.isMessageRetained())
+          && filterList.stream().noneMatch(filter -> filter.isMessageRetained());
+    }
+
+    private static Level maxLevel(LevelRule[] rules, Level level) {
+      for (LevelRule rule : rules) {
+        if (rule.getLevel().ordinal() > level.ordinal()) {
+          level = rule.getLevel();
+        }
+      }
+      return level;
+    }
+
+    /**
+     * @return the most detailed level of the level and the context rules that match the context
+     */
+    Level getContextLevel(Map<String, String> context) {
+      Level result = level;
+      for (LevelRule rule : contextRules) {
+        if (rule.getLevel().ordinal() > result.ordinal() && rule.matches(context)) {
+          result = rule.getLevel();
+        }
+      }
+      return result;
+    }
+
+    /**
+     * @return the level for the current context of the thread
+     */
+    Level getThreadLevel() {
+      return slot < 0 ? level : CONTEXT_LEVELS.get().get(this);
+    }
+
+    boolean isEnabled(Level messageLevel) {
+      int ordinal = messageLevel.ordinal();
+      return level.ordinal() >= ordinal
+          || contextLevel.ordinal() >= ordinal && getThreadLevel().ordinal() >= ordinal;
+    }
+
+    boolean isEnabled(Message msg) {
+      int ordinal = msg.getLevel().ordinal();
+      if (level.ordinal() >= ordinal) {
+        return true;
+      }
+      if (maxLevel.ordinal() < ordinal) {
+        return false;
+      }
+      if (contextLevel.ordinal() >= ordinal) {
+        Map<String, String> context = msg.getContext();
+        // a message logged on another thread than the one that created it has its own context
+        Level active = context == LogContext.getMap() ? getThreadLevel() : getContextLevel(context);
+        if (active.ordinal() >= ordinal) {
+          return true;
+        }
+      }
+      for (LevelRule rule : fieldRules) {
+        if (rule.getLevel().ordinal() >= ordinal && rule.matches(msg)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  /**
+   * The levels that the context rules give the snapshots for the current context of a thread. The
+   * context is immutable and replaced when it changes, so a different map means the levels have to
+   * be determined again.
+   */
+  private static final class ContextLevels {
+    private Map<String, String> context = null;
+    private Config[] configs = new Config[16];
+    private Level[] levels = new Level[16];
+
+    Level get(Config config) {
+      Map<String, String> current = LogContext.getMap();
+      if (current != context) {
+        context = current;
+        Arrays.fill(configs, null);
+      }
+      int slot = config.slot;
+      if (slot >= configs.length) {
+        int size = Math.max(slot + 1, configs.length * 2);
+        configs = Arrays.copyOf(configs, size);
+        levels = Arrays.copyOf(levels, size);
+      }
+      // a slot is reused by a new snapshot after the configuration changed
+      if (configs[slot] != config) {
+        levels[slot] = config.getContextLevel(current);
+        configs[slot] = config;
+      }
+      return levels[slot];
+    }
+  }
+
+  /**
+   * List of appenders, filters or level rules that rebuilds the configuration snapshots when it is
+   * changed. It is changed and read while holding the lock of LOGGERS, like the snapshots are
+   * built, so a change on one thread cannot break a rebuild on another.
+   */
+  private static class ConfigList<T> extends AbstractList<T> {
+    private final List<T> list = new ArrayList<>();
+
+    @Override
+    public T get(int index) {
+      synchronized (LOGGERS) {
+        return list.get(index);
+      }
+    }
+
+    @Override
+    public int size() {
+      synchronized (LOGGERS) {
+        return list.size();
+      }
+    }
+
+    @Override
+    public T set(int index, T element) {
+      synchronized (LOGGERS) {
+        T result = list.set(index, element);
+        reconfigure();
+        return result;
+      }
+    }
+
+    @Override
+    public void add(int index, T element) {
+      synchronized (LOGGERS) {
+        list.add(index, element);
+        reconfigure();
+      }
+    }
+
+    @Override
+    public T remove(int index) {
+      synchronized (LOGGERS) {
+        T result = list.remove(index);
+        reconfigure();
+        return result;
+      }
+    }
+  }
 
   public static Logger getLogger(Class<?> cls) {
     return getLogger(cls.getName());
   }
 
   public static Logger getLogger(String name) {
+    Logger result = REGISTRY.get(name);
+    if (result != null) {
+      return result;
+    }
     synchronized (LOGGERS) {
-      Logger result = LOGGERS.get(name);
+      result = LOGGERS.get(name);
       if (result == null) {
         result = new Logger(name);
         LOGGERS.put(name, result);
+        REGISTRY.put(name, result);
       }
       return result;
     }
   }
 
+  /**
+   * Remove the configuration of this logger. For the root logger, the configuration of all loggers
+   * is removed and the configuration file is no longer watched for changes.
+   */
   public void clear() {
+    List<Appender> removed = new ArrayList<>();
+    List<Filter> removedFilters = new ArrayList<>();
+    synchronized (LOGGERS) {
+      clearConfiguration(removed, removedFilters);
+      if (this == ROOT) {
+        LOGGERS.values().forEach(logger -> logger.clearConfiguration(removed, removedFilters));
+        watch(null, 0);
+      }
+      reconfigure();
+    }
+    close(removed, removedFilters);
+  }
+
+  private void clearConfiguration(List<Appender> removed, List<Filter> removedFilters) {
+    collect(removed, removedFilters);
     appenders = null;
+    filters = null;
+    levelRules = null;
     level = null;
-    if (this == ROOT) {
-      synchronized (LOGGERS) {
-        LOGGERS.values().forEach(logger -> logger.clear());
+  }
+
+  public void setLevel(Level level) {
+    synchronized (LOGGERS) {
+      this.level = level;
+      reconfigure();
+    }
+  }
+
+  /**
+   * Rebuild the configuration snapshots of all loggers. Parents are rebuilt before their children
+   * because the name of a parent is a prefix of the name of its children.
+   */
+  static void reconfigure() {
+    synchronized (LOGGERS) {
+      if (batchDepth > 0) {
+        return;
       }
+      contextSlots = 0;
+      ROOT.config = new Config(ROOT, null);
+      LOGGERS.values().forEach(logger -> logger.config = new Config(logger, logger.parent.config));
     }
   }
 
+  /**
+   * @return true when messages with the level are logged on this thread: the level is enabled or a
+   *         level rule enables it for the current context. Rules that match fields are not taken
+   *         into account, because fields are only known when the message is logged.
+   */
   public boolean isEnabled(Level level) {
-    return getActiveLevel().ordinal() >= level.ordinal();
+    return config.isEnabled(level);
   }
 
-  private Level getActiveLevel() {
-    if (level == null) {
-      if (parent != null) {
-        return parent.getActiveLevel();
-      }
-      return Level.ALL;
+  /**
+   * Reuse messages once they are logged, so logging does not create garbage. Messages are only
+   * reused for loggers without appenders or filters that keep messages after they are logged, like
+   * the AsyncAppender. Applications must not use a message after it is logged and must log it on
+   * the thread that started it.
+   */
+  public static void setReuseMessages(boolean reuse) {
+    reuseMessages = reuse;
+    reconfigure();
+  }
+
+  public static boolean isReuseMessages() {
+    return reuseMessages;
+  }
+
+  private Message create(Level level, String text, Supplier<String> msgSupplier) {
+    if (config.reuse) {
+      return Message.reuse(this, level, text, msgSupplier);
     }
-    return level;
+    return text != null ? new Message(this, level, text) : new Message(this, level, msgSupplier);
   }
 
   void append(Message msg) {
-    if (isEnabled(msg.getLevel())) {
-      sendToAppenders(msg);
+    Config current = config;
+    if (current.isEnabled(msg)) {
+      if (!current.reuse) {
+        // the configuration changed since the message was created
+        msg.detach();
+      }
+      if (current.locationRequired) {
+        msg.captureLocation();
+      }
+      for (Filter filter : current.filters) {
+        if (!filter.accept(msg)) {
+          filtered.increment();
+          return;
+        }
+      }
+      accepted.increment();
+      if (current.profile) {
+        LogProfiler.count(msg);
+      }
+      for (Appender appender : current.appenders) {
+        appender.append(msg);
+      }
     }
   }
 
-  private void sendToAppenders(Message msg) {
-    if (appenders != null) {
-      appenders.forEach(appender -> appender.log(msg));
-    }
-    if (parent != null) {
-      parent.sendToAppenders(msg);
+  /**
+   * Pass a message to the appenders without the filters, for messages written by a filter itself
+   */
+  void appendUnfiltered(Message msg) {
+    accepted.increment();
+    for (Appender appender : config.appenders) {
+      appender.append(msg);
     }
   }
 
+  /**
+   * @return the number of messages of this logger that were passed to the appenders
+   */
+  public long getAcceptedCount() {
+    return accepted.sum();
+  }
+
+  /**
+   * @return the number of messages of this logger that were dropped by a filter
+   */
+  public long getFilteredCount() {
+    return filtered.sum();
+  }
+
+  /**
+   * Start a log statement. The returned message belongs to the calling thread until it is logged
+   * with one of its level methods, so a logger can be shared by any number of threads.
+   */
   public Message log(String msg) {
-    if (message != null) {
-      throw new IllegalStateException("log statement not logged at " + message.getLocation());
+    return create(null, msg, null);
+  }
+
+  /**
+   * Start a log statement with a message that is only built when an appender renders it
+   */
+  public Message log(Supplier<String> msgSupplier) {
+    return create(null, null, msgSupplier);
+  }
+
+  /**
+   * Start a log statement with a level. When the level is not enabled, a shared message is returned
+   * that ignores its fields and is not logged, so the statement does not allocate anything.
+   * Complete the statement with {@link Message#log()}.
+   *
+   * <pre>
+   * LOG.debug("message").with("field", value).log();
+   * </pre>
+   */
+  public Message at(Level level, String msg) {
+    if (!isEnabled(level)) {
+      return Message.DISABLED;
     }
-    message = new Message(this, msg);
-    return message;
+    return create(level, msg, null);
+  }
+
+  public Message at(Level level, Supplier<String> msgSupplier) {
+    if (!isEnabled(level)) {
+      return Message.DISABLED;
+    }
+    return create(level, null, msgSupplier);
+  }
+
+  public Message fatal(String msg) {
+    return at(Level.FATAL, msg);
+  }
+
+  public Message error(String msg) {
+    return at(Level.ERROR, msg);
+  }
+
+  public Message warn(String msg) {
+    return at(Level.WARN, msg);
+  }
+
+  public Message info(String msg) {
+    return at(Level.INFO, msg);
+  }
+
+  public Message debug(String msg) {
+    return at(Level.DEBUG, msg);
+  }
+
+  public Message debug(Supplier<String> msgSupplier) {
+    return at(Level.DEBUG, msgSupplier);
+  }
+
+  public Message trace(String msg) {
+    return at(Level.TRACE, msg);
+  }
+
+  public Message trace(Supplier<String> msgSupplier) {
+    return at(Level.TRACE, msgSupplier);
   }
 
   public static Logger getRootLogger() {
@@ -109,21 +517,72 @@ public class Logger {
       }
       pos = parentName.lastIndexOf(".");
     }
-    SortedMap<String, Logger> submap = LOGGERS.tailMap(name);
+    String prefix = name + '.';
+    SortedMap<String, Logger> submap = LOGGERS.tailMap(prefix);
     for (Entry<String, Logger> e : submap.entrySet()) {
-      if (e.getKey().startsWith(name)) {
-        e.getValue().parent = this;
-      } else {
+      if (!e.getKey().startsWith(prefix)) {
         break;
       }
+      Logger child = e.getValue();
+      if (child.parent.name.length() < name.length()) {
+        child.parent = this;
+      }
     }
+    config = new Config(this, parent != null ? parent.config : null);
   }
 
   public List<Appender> getAppenders() {
-    if (appenders == null) {
-      appenders = new ArrayList<>();
+    synchronized (LOGGERS) {
+      if (appenders == null) {
+        appenders = new ConfigList<>();
+      }
+      return appenders;
+    }
+  }
+
+  /**
+   * @return the appenders configured for this logger itself, without creating a list
+   */
+  List<Appender> getOwnAppenders() {
+    return appenders != null ? appenders : List.of();
+  }
+
+  /**
+   * @return the root logger and all other loggers
+   */
+  static List<Logger> getAllLoggers() {
+    synchronized (LOGGERS) {
+      List<Logger> result = new ArrayList<>(LOGGERS.size() + 1);
+      result.add(ROOT);
+      result.addAll(LOGGERS.values());
+      return result;
+    }
+  }
+
+  /**
+   * @return the filters of this logger. They apply to the messages of this logger and its children
+   *         before the filters of the parent.
+   */
+  public List<Filter> getFilters() {
+    synchronized (LOGGERS) {
+      if (filters == null) {
+        filters = new ConfigList<>();
+      }
+      return filters;
+    }
+  }
+
+  /**
+   * @return the level rules of this logger. They apply to the messages of this logger and its
+   *         children, together with the rules of the parent.
+   */
+  public List<LevelRule> getLevelRules() {
+    synchronized (LOGGERS) {
+      if (levelRules == null) {
+        levelRules = new ConfigList<>();
+      }
+      return levelRules;
     }
-    return appenders;
   }
 
   void init(Properties properties) {
@@ -133,24 +592,45 @@ public class Logger {
     String format = properties.getProperty(formatKey);
     properties.remove(formatKey);
     if (handlers != null) {
-      String[] names = handlers.split(",");
-      for (String name : names) {
+      for (String name : handlers.split(",")) {
         try {
           String cname = name.trim();
-          Appender appender = (Appender) Class.forName(cname).getConstructor().newInstance();
-          Properties appenderProps = getPropertiesWithPrefix(properties, cname + '.');
-          appenderProps.keySet().forEach(prop -> properties.remove(cname + "." + prop));
+          Properties appenderProps = removePropertiesWithPrefix(properties, cname + '.');
           // make sure format inheritance works
           if (format != null && !appenderProps.containsKey(formatKey)) {
             appenderProps.setProperty(formatKey, format);
           }
-          appender.init(appenderProps);
-          getAppenders().add(appender);
+          getAppenders().add(create(cname, appenderProps, Appender::create));
         } catch (Exception ex) {
           LOG.log("Could not initialise Appender").with("name", name).with(ex).warn();
         }
       }
     }
+    String filterNames = properties.getProperty("filters");
+    properties.remove("filters");
+    if (filterNames != null) {
+      for (String name : filterNames.split(",")) {
+        try {
+          String cname = name.trim();
+          Properties filterProps = removePropertiesWithPrefix(properties, cname + '.');
+          getFilters().add(create(cname, filterProps, Filter::create));
+        } catch (Exception ex) {
+          LOG.log("Could not initialise Filter").with("name", name).with(ex).warn();
+        }
+      }
+    }
+    String ruleNames = properties.getProperty("levelRules");
+    properties.remove("levelRules");
+    if (ruleNames != null) {
+      for (String name : ruleNames.split(",")) {
+        try {
+          Properties ruleProps = removePropertiesWithPrefix(properties, name.trim() + '.');
+          getLevelRules().add(LevelRule.create(ruleProps));
+        } catch (Exception ex) {
+          LOG.log("Could not initialise level rule").with("name", name).with(ex).warn();
+        }
+      }
+    }
     String level = properties.getProperty("level");
     if (level != null) {
       level = level.trim();
@@ -161,24 +641,116 @@ public class Logger {
         LOG.log("unknown level specification").with("level", level).warn();
       }
     }
-    while (this == ROOT && !properties.isEmpty()) {
-      String key = (String) properties.propertyNames().nextElement();
+    while (!properties.isEmpty()) {
+      // the shortest name first: the properties of appenders and filters of a logger look like the
+      // properties of a child logger
+      String key = properties.stringPropertyNames().stream()
+          .min(Comparator.comparingLong(k -> k.chars().filter(c -> c == '.').count())).get();
+      int pos = key.lastIndexOf('.');
+      if (pos == -1) {
+        properties.remove(key);
+        LOG.log("illegal logger property").with("property", key).with("logger", name).warn();
+        continue;
+      }
+      String childName = key.substring(0, pos);
+      Properties subProperties = removePropertiesWithPrefix(properties, childName + '.');
       try {
-        String name = key.substring(0, key.lastIndexOf('.'));
-        Logger config = Logger.getLogger(name);
-        Properties subProperties = getPropertiesWithPrefix(properties, name + '.');
-        subProperties.keySet().forEach(prop -> properties.remove(name + "." + prop));
-        config.init(subProperties);
+        getLogger(this == ROOT ? childName : name + '.' + childName).init(subProperties);
       } catch (Exception ex) {
         LOG.log("illegal logger property").with("property", key).with(ex).warn();
       }
     }
   }
 
+  interface Factory<T> {
+    T create(String className, Properties properties)
+        throws ReflectiveOperationException, IOException;
+  }
+
+  /**
+   * Create an appender or filter, or during a reload take the one of the previous configuration
+   * that was created with the same class and properties for this logger
+   */
+  private <T> T create(String className, Properties properties, Factory<T> factory)
+      throws ReflectiveOperationException, IOException {
+    String key = name + '\n' + className + '\n' + new TreeMap<>(properties);
+    if (reusable != null) {
+      @SuppressWarnings("unchecked")
+      T previous = (T) reusable.remove(key);
+      if (previous != null) {
+        return previous;
+      }
+    }
+    T result = factory.create(className, properties);
+    CREATED.put(result, key);
+    return result;
+  }
+
+  private static Properties removePropertiesWithPrefix(Properties properties, String prefix) {
+    Properties result = getPropertiesWithPrefix(properties, prefix);
+    result.keySet().forEach(prop -> properties.remove(prefix + prop));
+    return result;
+  }
+
+
 
 
   static {
     initialiseLoggingSystem();
+    if (Boolean.getBoolean("bones.log." + JMX)) {
+      LogMetrics.registerMBeans();
+    }
+    Runtime.getRuntime().addShutdownHook(new Thread(Logger::shutdown, "bones-log-shutdown"));
+  }
+
+  /**
+   * Close all appenders so that buffered or queued messages are written. This method is called by
+   * a shutdown hook when the JVM exits.
+   */
+  public static void shutdown() {
+    List<Appender> all = new ArrayList<>();
+    List<Filter> allFilters = new ArrayList<>();
+    synchronized (LOGGERS) {
+      watch(null, 0);
+      ROOT.collect(all, allFilters);
+      LOGGERS.values().forEach(logger -> logger.collect(all, allFilters));
+      for (Retired retired : RETIRING) {
+        retired.cancel();
+        all.addAll(retired.appenders);
+        allFilters.addAll(retired.filters);
+      }
+      RETIRING.clear();
+    }
+    close(all, allFilters);
+  }
+
+  private void collect(List<Appender> appenderResult, List<Filter> filterResult) {
+    if (appenders != null) {
+      appenderResult.addAll(appenders);
+    }
+    if (filters != null) {
+      filterResult.addAll(filters);
+    }
+  }
+
+  private static void close(List<Appender> appenders, List<Filter> filters) {
+    // filters first, they may write a last summary to the appenders
+    for (Filter filter : filters) {
+      try {
+        filter.close();
+      } catch (RuntimeException ex) {
+        System.err.println("Unexpected failure while closing filter " + filter);
+        ex.printStackTrace();
+      }
+    }
+    for (Appender appender : appenders) {
+      try {
+        appender.close();
+      } catch (RuntimeException ex) {
+        System.err.println("Unexpected failure while closing appender " + appender);
+        ex.printStackTrace();
+      }
+    }
   }
 
   public static void initialiseLoggingSystem() {
@@ -213,6 +785,7 @@ public class Logger {
         Properties properties = new Properties();
         properties.load(reader);
         initFromProperties(properties);
+        watch(file, properties);
         return true;
       } catch (IOException ex) {
         LOG.log("Error while reading logging config").with("file-name", file.getAbsolutePath())
@@ -237,7 +810,146 @@ public class Logger {
 
   public static void initFromProperties(Properties properties) {
     Properties logProps = getPropertiesWithPrefix(properties, "bones.log.");
+    initGlobalProperties(logProps, false);
     ROOT.init(logProps);
+    reconfigure();
+  }
+
+  /**
+   * Replace the complete configuration with the one in the properties. Loggers switch to the new
+   * configuration at once and appenders and filters that are configured exactly as before are
+   * kept. The others are closed a second after the switch, or later when a thread that took the
+   * previous configuration is still appending to them, so they write all messages they got.
+   */
+  public static void reload(Properties properties) {
+    Properties logProps = getPropertiesWithPrefix(properties, "bones.log.");
+    initGlobalProperties(logProps, true);
+    List<Appender> removed = new ArrayList<>();
+    List<Filter> removedFilters = new ArrayList<>();
+    synchronized (LOGGERS) {
+      List<Appender> previous = new ArrayList<>();
+      List<Filter> previousFilters = new ArrayList<>();
+      ROOT.clearConfiguration(previous, previousFilters);
+      LOGGERS.values().forEach(logger -> logger.clearConfiguration(previous, previousFilters));
+      reusable = new HashMap<>();
+      for (Object created : previous) {
+        keep(created, removed);
+      }
+      for (Object created : previousFilters) {
+        keep(created, removedFilters);
+      }
+      ++batchDepth;
+      try {
+        ROOT.init(logProps);
+      } finally {
+        --batchDepth;
+        for (Object unused : reusable.values()) {
+          if (unused instanceof Appender appender) {
+            removed.add(appender);
+          } else {
+            removedFilters.add((Filter) unused);
+          }
+        }
+        reusable = null;
+        reconfigure();
+      }
+      if (!removed.isEmpty() || !removedFilters.isEmpty()) {
+        Retired retired = new Retired(removed, removedFilters);
+        RETIRING.add(retired);
+        Retired.TIMER.schedule(retired, RETIRE_DELAY);
+      }
+    }
+  }
+
+  /**
+   * Appenders and filters that a reload replaced. Threads that took the previous configuration can
+   * still pass messages to them, so they are closed after a delay and an appender that is still in
+   * use is closed by the last thread that leaves it.
+   */
+  private static final class Retired extends TimerTask {
+    // created on the first reload
+    private static final Timer TIMER = new Timer("bones-log-reload", true);
+    private final List<Appender> appenders;
+    private final List<Filter> filters;
+
+    Retired(List<Appender> appenders, List<Filter> filters) {
+      this.appenders = appenders;
+      this.filters = filters;
+    }
+
+    @Override
+    public void run() {
+      synchronized (LOGGERS) {
+        if (!RETIRING.remove(this)) {
+          return;
+        }
+      }
+      close(List.of(), filters);
+      appenders.forEach(Appender::retire);
+    }
+  }
+
+  /**
+   * Remove and apply the properties that apply to the whole library instead of a logger. During a
+   * reload absent properties get their default value.
+   */
+  private static void initGlobalProperties(Properties logProps, boolean reload) {
+    logProps.remove(RELOAD_INTERVAL);
+    Object reuse = logProps.remove(REUSE_MESSAGES);
+    if (reuse != null || reload) {
+      reuseMessages = reuse != null && Boolean.parseBoolean(reuse.toString().trim());
+    }
+    Object jmx = logProps.remove(JMX);
+    if (jmx != null && Boolean.parseBoolean(jmx.toString().trim())) {
+      LogMetrics.registerMBeans();
+    }
+    LogProfiler.init(logProps, reload);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> void keep(Object created, List<T> removed) {
+    String key = CREATED.get(created);
+    if (key != null && reusable.get(key) == created) {
+      // the same instance was configured twice
+      return;
+    }
+    if (key != null && !reusable.containsKey(key)) {
+      reusable.put(key, created);
+    } else {
+      removed.add((T) created);
+    }
+  }
+
+  /**
+   * Check the configuration file for changes every 'bones.log.reloadInterval' milliseconds and
+   * reload it when it changed
+   */
+  static void watch(File file, Properties properties) {
+    long interval = 0;
+    String value = properties.getProperty("bones.log." + RELOAD_INTERVAL);
+    if (value != null) {
+      try {
+        interval = Long.parseLong(value.trim());
+      } catch (NumberFormatException ex) {
+        LOG.log("invalid value for " + RELOAD_INTERVAL).with("value", value).warn();
+      }
+    }
+    watch(file, interval);
+  }
+
+  private static void watch(File file, long interval) {
+    synchronized (LOGGERS) {
+      if (watcher != null) {
+        if (watcher.isWatching(file, interval)) {
+          return;
+        }
+        watcher.cancel();
+        watcher = null;
+      }
+      if (file != null && interval > 0) {
+        watcher = new ConfigWatcher(file, interval);
+      }
+    }
   }
 
   static Properties getPropertiesWithPrefix(Properties properties, String prefix) {
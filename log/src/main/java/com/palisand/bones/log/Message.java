@@ -2,76 +2,343 @@ package com.palisand.bones.log;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.function.Supplier;
-import java.util.stream.Collectors;
+import com.palisand.bones.log.slf4j.ParameterizedMessage;
+import lombok.AccessLevel;
 import lombok.Getter;
 
 @Getter
 public class Message {
+  private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+  private static final String PACKAGE = Message.class.getPackageName();
+  private static final int POOL_SIZE = 4;
+  private static final ThreadLocal<Message[]> POOL =
+      ThreadLocal.withInitial(() -> new Message[POOL_SIZE]);
+
   /**
-   * 
+   *
    */
-  private final Logger logger;
-  private final Supplier<String> message;
-  private final String location;
-  private final Instant timestamp;
+  private Logger logger;
+  @Getter(AccessLevel.NONE)
+  private Supplier<String> message;
+  @Getter(AccessLevel.NONE)
+  private String text;
+  private String location;
+  @Getter(AccessLevel.NONE)
+  private long epochSecond;
+  @Getter(AccessLevel.NONE)
+  private int nano;
   private Throwable throwable;
   private Level level;
-  private TreeMap<String, Object> fields;
+  private SortedMap<String, String> context;
+
+  // the fields sorted on name in parallel arrays, primitive values are kept as bits
+  @Getter(AccessLevel.NONE)
+  private int fieldCount = 0;
+  @Getter(AccessLevel.NONE)
+  private String[] fieldNames;
+  @Getter(AccessLevel.NONE)
+  private FieldType[] fieldTypes;
+  @Getter(AccessLevel.NONE)
+  private Object[] fieldValues;
+  @Getter(AccessLevel.NONE)
+  private long[] fieldBits;
+
+  @Getter(AccessLevel.NONE)
+  private LogProfiler.Site profilerSite;
+
+  // the pool of the thread that uses this message, null when it is not reused
+  @Getter(AccessLevel.NONE)
+  private Message[] pool;
+  @Getter(AccessLevel.NONE)
+  private int poolIndex;
+  @Getter(AccessLevel.NONE)
+  private boolean inUse;
+
+  /**
+   * The type of a field value. Primitive values are stored without boxing them.
+   */
+  enum FieldType {
+    OBJECT, LONG, DOUBLE, FLOAT, BOOLEAN, CHAR
+  }
+
+  /**
+   * A message text that is built from a template, like a pattern with placeholders. Messages that
+   * are logged by the same statement share the template, while their text may differ.
+   */
+  public interface Template extends Supplier<String> {
+    String getTemplate();
+
+    /**
+     * @return the values for the '{}' placeholders of the template, formatted as in
+     *         {@link com.palisand.bones.log.slf4j.ParameterizedMessage}, or null when the text can
+     *         not be built from the template again
+     */
+    default Object[] getArguments() {
+      return null;
+    }
+  }
 
   Message(Logger logger, String msg) {
-    this(logger, () -> msg);
+    start(logger, null, msg, null);
   }
 
   Message(Logger logger, Supplier<String> msgSupplier) {
+    start(logger, null, null, msgSupplier);
+  }
+
+  Message(Logger logger, Level level, String msg) {
+    start(logger, level, msg, null);
+  }
+
+  Message(Logger logger, Level level, Supplier<String> msgSupplier) {
+    start(logger, level, null, msgSupplier);
+  }
+
+  /**
+   * Create a message that was logged before, like one that is read back from a binary log file
+   */
+  Message(Logger logger, Level level, Supplier<String> msgSupplier, Instant timestamp,
+      SortedMap<String, String> context) {
     this.logger = logger;
+    this.level = level;
     message = msgSupplier;
-    StackTraceElement[] stack = Thread.currentThread().getStackTrace();
-    int i = 1;
-    while (i < stack.length - 1
-        && (stack[i].getClassName().startsWith(Message.class.getPackageName())
-            || stack[i].getClassName().toLowerCase().contains("slf4j")
-            || stack[i].getClassName().toLowerCase().contains("logging"))) {
-      ++i;
+    epochSecond = timestamp.getEpochSecond();
+    nano = timestamp.getNano();
+    this.context = context;
+  }
+
+  private Message() {
+    // the text of the disabled message
+    text = "";
+    context = Collections.emptySortedMap();
+  }
+
+  private void start(Logger logger, Level level, String text, Supplier<String> message) {
+    this.logger = logger;
+    this.level = level;
+    this.text = text;
+    this.message = message;
+    Instant now = Instant.now();
+    epochSecond = now.getEpochSecond();
+    nano = now.getNano();
+    context = LogContext.getMap();
+  }
+
+  /**
+   * Take a message from the pool of the current thread, or create one when all messages in the pool
+   * are in use, like when a message is built while another one is logged
+   */
+  static Message reuse(Logger logger, Level level, String text, Supplier<String> message) {
+    Message[] current = POOL.get();
+    for (int i = 0; i < current.length; ++i) {
+      Message msg = current[i];
+      if (msg == null) {
+        msg = new Message();
+        msg.pool = current;
+        msg.poolIndex = i;
+        current[i] = msg;
+      }
+      if (!msg.inUse) {
+        msg.inUse = true;
+        msg.start(logger, level, text, message);
+        return msg;
+      }
+    }
+    Message msg = new Message();
+    msg.start(logger, level, text, message);
+    return msg;
+  }
+
+  /**
+   * @return whether this message goes back to the pool when it has been logged
+   */
+  boolean isReused() {
+    return pool != null;
+  }
+
+  /**
+   * Take this message out of its pool, because an appender or filter keeps it after it is logged
+   */
+  void detach() {
+    if (pool != null) {
+      pool[poolIndex] = null;
+      pool = null;
+    }
+  }
+
+  private void release() {
+    message = null;
+    text = null;
+    location = null;
+    throwable = null;
+    level = null;
+    context = null;
+    profilerSite = null;
+    if (fieldCount > 0) {
+      Arrays.fill(fieldValues, 0, fieldCount, null);
+      fieldCount = 0;
+    }
+    inUse = false;
+  }
+
+  /**
+   * Determine the location of the log statement from the stack of the calling thread. This is only
+   * done when an appender needs the location, so it must be called on the thread that logs.
+   */
+  void captureLocation() {
+    if (location == null) {
+      location = STACK_WALKER.walk(frames -> frames
+          .dropWhile(frame -> isLoggingFrame(frame.getClassName())).findFirst()
+          .map(frame -> frame.toStackTraceElement().toString()).orElse("unknown"));
     }
-    location = stack[i].toString();
-    timestamp = Instant.now();
+  }
+
+  private static boolean isLoggingFrame(String className) {
+    return className.startsWith(PACKAGE) || containsIgnoreCase(className, "slf4j")
+        || containsIgnoreCase(className, "logging");
+  }
+
+  private static boolean containsIgnoreCase(String str, String part) {
+    for (int i = str.length() - part.length(); i >= 0; --i) {
+      if (str.regionMatches(true, i, part, 0, part.length())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return the location of the log statement. If it was not captured when the message was logged,
+   *         it is captured now, which is only correct when called on the logging thread.
+   */
+  public String getLocation() {
+    captureLocation();
+    return location;
+  }
+
+  public Instant getTimestamp() {
+    return Instant.ofEpochSecond(epochSecond, nano);
+  }
+
+  /**
+   * @return the seconds of the timestamp since the epoch, without creating an Instant
+   */
+  long getEpochSecond() {
+    return epochSecond;
+  }
+
+  /**
+   * @return the nanoseconds of the timestamp within its second
+   */
+  int getNano() {
+    return nano;
   }
 
   public String getDate() {
-    return timestamp.toString().substring(0, 10);
+    return TimestampRenderer.DATE.format(getTimestamp());
   }
 
   public String getTime() {
-    return timestamp.toString().substring(11, 23);
+    return TimestampRenderer.TIME.format(getTimestamp());
   }
 
   public String getMessageString() {
-    StringWriter sb = new StringWriter();
-    if (message != null) {
-      sb.append(message.get());
+    StringBuilder sb = new StringBuilder();
+    appendMessageString(sb);
+    return sb.toString();
+  }
+
+  /**
+   * Append the message text, the fields and the stack trace of the throwable to the output
+   */
+  public void appendMessageString(StringBuilder out) {
+    if (text != null) {
+      out.append(text);
+    } else if (message != null) {
+      out.append(message.get());
     }
-    if (fields != null) {
-      sb.append(" ");
-      sb.append(fields.entrySet().stream().map(e -> e.getKey() + ": " + e.getValue())
-          .collect(Collectors.joining(" ")));
+    for (int i = 0; i < fieldCount; ++i) {
+      out.append(' ').append(fieldNames[i]).append(": ");
+      appendFieldValue(out, i);
     }
     if (throwable != null) {
-      sb.append("\n");
-      try (PrintWriter out = new PrintWriter(sb)) {
-        throwable.printStackTrace(out);
+      out.append("\n");
+      StringWriter trace = new StringWriter();
+      try (PrintWriter writer = new PrintWriter(trace)) {
+        throwable.printStackTrace(writer);
       }
+      out.append(trace.getBuffer());
     }
-    return sb.toString();
   }
 
-  public Message with(String name, Object value) {
-    if (fields == null) {
-      fields = new TreeMap<>();
+  /**
+   * Add a field or replace the value of the field with the same name
+   */
+  private void put(String name, FieldType type, Object value, long bits) {
+    int index = 0;
+    while (index < fieldCount && fieldNames[index].compareTo(name) < 0) {
+      ++index;
     }
-    fields.put(name, value);
+    if (index == fieldCount || !fieldNames[index].equals(name)) {
+      if (fieldNames == null) {
+        fieldNames = new String[4];
+        fieldTypes = new FieldType[4];
+        fieldValues = new Object[4];
+        fieldBits = new long[4];
+      } else if (fieldCount == fieldNames.length) {
+        fieldNames = Arrays.copyOf(fieldNames, fieldCount * 2);
+        fieldTypes = Arrays.copyOf(fieldTypes, fieldCount * 2);
+        fieldValues = Arrays.copyOf(fieldValues, fieldCount * 2);
+        fieldBits = Arrays.copyOf(fieldBits, fieldCount * 2);
+      }
+      int moved = fieldCount - index;
+      System.arraycopy(fieldNames, index, fieldNames, index + 1, moved);
+      System.arraycopy(fieldTypes, index, fieldTypes, index + 1, moved);
+      System.arraycopy(fieldValues, index, fieldValues, index + 1, moved);
+      System.arraycopy(fieldBits, index, fieldBits, index + 1, moved);
+      fieldNames[index] = name;
+      ++fieldCount;
+    }
+    fieldTypes[index] = type;
+    fieldValues[index] = value;
+    fieldBits[index] = bits;
+  }
+
+  public Message with(String name, Object value) {
+    put(name, FieldType.OBJECT, value, 0);
+    return this;
+  }
+
+  public Message with(String name, long value) {
+    put(name, FieldType.LONG, null, value);
+    return this;
+  }
+
+  public Message with(String name, double value) {
+    put(name, FieldType.DOUBLE, null, Double.doubleToRawLongBits(value));
+    return this;
+  }
+
+  public Message with(String name, float value) {
+    put(name, FieldType.FLOAT, null, Float.floatToRawIntBits(value));
+    return this;
+  }
+
+  public Message with(String name, boolean value) {
+    put(name, FieldType.BOOLEAN, null, value ? 1 : 0);
+    return this;
+  }
+
+  public Message with(String name, char value) {
+    put(name, FieldType.CHAR, null, value);
     return this;
   }
 
@@ -80,8 +347,195 @@ public class Message {
     return this;
   }
 
+  /**
+   * @return the number of fields
+   */
+  public int getFieldCount() {
+    return fieldCount;
+  }
+
+  /**
+   * @return the name of a field, the fields are sorted on name
+   */
+  public String getFieldName(int index) {
+    return fieldNames[index];
+  }
+
+  /**
+   * @return the index of the field with the name or a negative number when there is no such field
+   */
+  public int indexOfField(String name) {
+    return fieldCount == 0 ? -1 : Arrays.binarySearch(fieldNames, 0, fieldCount, name);
+  }
+
+  /**
+   * @return the value of a field, primitive values are boxed
+   */
+  public Object getFieldValue(int index) {
+    long bits = fieldBits[index];
+    return switch (fieldTypes[index]) {
+      case OBJECT -> fieldValues[index];
+      case LONG -> bits;
+      case DOUBLE -> Double.longBitsToDouble(bits);
+      case FLOAT -> Float.intBitsToFloat((int) bits);
+      case BOOLEAN -> bits != 0;
+      case CHAR -> (char) bits;
+    };
+  }
+
+  LogProfiler.Site getProfilerSite() {
+    return profilerSite;
+  }
+
+  void setProfilerSite(LogProfiler.Site site) {
+    profilerSite = site;
+  }
+
+  FieldType getFieldType(int index) {
+    return fieldTypes[index];
+  }
+
+  /**
+   * @return the value of a field with a primitive type as bits: a long, the raw bits of a double or
+   *         float, 1 for true or the char
+   */
+  long getFieldBits(int index) {
+    return fieldBits[index];
+  }
+
+  /**
+   * Append the value of a field as text without boxing primitive values
+   */
+  void appendFieldValue(StringBuilder out, int index) {
+    long bits = fieldBits[index];
+    switch (fieldTypes[index]) {
+      case OBJECT -> out.append(fieldValues[index]);
+      case LONG -> out.append(bits);
+      case DOUBLE -> out.append(Double.longBitsToDouble(bits));
+      case FLOAT -> out.append(Float.intBitsToFloat((int) bits));
+      case BOOLEAN -> out.append(bits != 0);
+      case CHAR -> out.append((char) bits);
+    }
+  }
+
+  /**
+   * @return the fields in a new map, or null when the message has no fields
+   */
+  public TreeMap<String, Object> getFields() {
+    if (fieldCount == 0) {
+      return null;
+    }
+    TreeMap<String, Object> result = new TreeMap<>();
+    for (int i = 0; i < fieldCount; ++i) {
+      result.put(fieldNames[i], getFieldValue(i));
+    }
+    return result;
+  }
+
   public String getMessage() {
-    return message.get();
+    return text != null ? text : message.get();
+  }
+
+  /**
+   * @return the template of the message text or the text itself when it has no template
+   */
+  public String getTemplate() {
+    return message instanceof Template template ? template.getTemplate() : getMessage();
+  }
+
+  /**
+   * @return the values for the placeholders of the template or null when the message text is not
+   *         built from a template
+   */
+  public Object[] getArguments() {
+    return message instanceof Template template ? template.getArguments() : null;
+  }
+
+  /**
+   * Build the text of the message now and keep the template arguments as text, so that an appender
+   * that writes the message later on another thread writes the values as they were when the message
+   * was logged. Appenders that keep messages call this on the thread that logs.
+   */
+  public void freeze() {
+    if (text != null || message == null) {
+      return;
+    }
+    Object[] arguments = getArguments();
+    String template = getTemplate();
+    text = message.get();
+    if (arguments != null) {
+      arguments = arguments.clone();
+      for (int i = 0; i < arguments.length; ++i) {
+        if (!isImmutable(arguments[i])) {
+          arguments[i] = ParameterizedMessage.format("{}", new Object[] {arguments[i]});
+        }
+      }
+      message = new FrozenTemplate(template, arguments, text);
+    }
+  }
+
+  /**
+   * Keep the template arguments that can still change as text, so an appender that writes the
+   * message later writes the values as they were when the message was logged. Unlike
+   * {@link #freeze()} the text of the message is only built when it is needed.
+   */
+  public void snapshotArguments() {
+    if (text != null || !(message instanceof Template template)) {
+      return;
+    }
+    Object[] arguments = template.getArguments();
+    if (arguments == null) {
+      return;
+    }
+    Object[] snapshot = null;
+    for (int i = 0; i < arguments.length; ++i) {
+      if (!isImmutable(arguments[i])) {
+        if (snapshot == null) {
+          snapshot = arguments.clone();
+        }
+        snapshot[i] = ParameterizedMessage.format("{}", new Object[] {arguments[i]});
+      }
+    }
+    if (snapshot != null) {
+      message = new ParameterizedMessage(template.getTemplate(), snapshot);
+    }
+  }
+
+  private static boolean isImmutable(Object value) {
+    return value == null || value instanceof String || value instanceof Boolean
+        || value instanceof Character || value instanceof Long || value instanceof Integer
+        || value instanceof Short || value instanceof Byte || value instanceof Double
+        || value instanceof Float || value instanceof BigDecimal || value instanceof BigInteger;
+  }
+
+  /**
+   * A template with its text built and its arguments as they were when the message was logged
+   */
+  private record FrozenTemplate(String template, Object[] arguments, String text)
+      implements Template {
+
+    @Override
+    public String getTemplate() {
+      return template;
+    }
+
+    @Override
+    public Object[] getArguments() {
+      return arguments.clone();
+    }
+
+    @Override
+    public String get() {
+      return text;
+    }
+  }
+
+  /**
+   * Set the location of a message that is not logged by a log statement, like a summary of other
+   * messages
+   */
+  void setLocation(String location) {
+    this.location = location;
   }
 
   public void fatal() {
@@ -108,10 +562,76 @@ public class Message {
     log(Level.TRACE);
   }
 
-  private void log(Level level) {
+  /**
+   * Log this message with the level it was created with by one of the level methods of the Logger.
+   */
+  public void log() {
+    if (level == null) {
+      throw new IllegalStateException("log statement without a level at " + getLocation());
+    }
+    log(level);
+  }
+
+  /**
+   * Log the message. A reused message goes back to the pool of its thread afterwards, so it must
+   * not be used anymore.
+   */
+  void log(Level level) {
     this.level = level;
-    this.logger.message = null;
-    this.logger.append(this);
+    try {
+      this.logger.append(this);
+    } finally {
+      if (pool != null) {
+        release();
+      }
+    }
   }
 
+  /**
+   * The message returned by the level methods of a Logger when the level is not enabled. It ignores
+   * everything, so a disabled log statement costs no allocations.
+   */
+  static final Message DISABLED = new Message() {
+    @Override
+    public Message with(String name, Object value) {
+      return this;
+    }
+
+    @Override
+    public Message with(String name, long value) {
+      return this;
+    }
+
+    @Override
+    public Message with(String name, double value) {
+      return this;
+    }
+
+    @Override
+    public Message with(String name, float value) {
+      return this;
+    }
+
+    @Override
+    public Message with(String name, boolean value) {
+      return this;
+    }
+
+    @Override
+    public Message with(String name, char value) {
+      return this;
+    }
+
+    @Override
+    public Message with(Throwable throwable) {
+      return this;
+    }
+
+    @Override
+    public void log() {}
+
+    @Override
+    void log(Level level) {}
+  };
+
 }
@@ -4,6 +4,10 @@ import java.io.PrintStream;
 import lombok.Getter;
 import lombok.Setter;
 
+/**
+ * Appender that prints the formatted messages to a PrintStream. The encoding of the stream is not
+ * known, so the bytes in the metrics and the {@link LogProfiler} are the number of characters.
+ */
 @Getter
 @Setter
 public class PrintStreamAppender extends Appender {
@@ -17,15 +21,23 @@ public class PrintStreamAppender extends Appender {
   @Override
   public void log(Message msg) {
     if (isEnabled(msg.getLevel())) {
+      String text = formatMessage(msg);
       synchronized (this) {
-        outputStream.println(formatMessage(msg));
+        outputStream.println(text);
         outputStream.flush();
       }
+      // the encoding of the stream is unknown, count characters
+      addBytes(msg, text.length() + System.lineSeparator().length());
     }
   }
 
-  public void close() {
-    outputStream.close();
+  @Override
+  public synchronized void close() {
+    if (outputStream == System.out || outputStream == System.err) {
+      outputStream.flush();
+    } else if (outputStream != null) {
+      outputStream.close();
+    }
   }
 
 }
@@ -0,0 +1,185 @@
+package com.palisand.bones.log;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Properties;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Limits the number of messages per log statement. Every statement, identified by its location or
+ * by its message template, gets a token bucket that holds 'burst' messages and is refilled with
+ * 'rate' messages per second. Messages that find the bucket empty are dropped and counted. Every
+ * 'summaryInterval' milliseconds a message is written for each statement that dropped messages,
+ * with the number of suppressed messages and the text of the last one.
+ *
+ * <p>
+ * A bucket is a single number that is updated with compare and set, so threads that log through
+ * the same statement do not block each other.
+ */
+@Getter
+@Setter
+public class RateLimitFilter extends Filter {
+  public static final String LOCATION_KEY = "location";
+  public static final String TEMPLATE_KEY = "template";
+  private static final Timer SUMMARY_TIMER = new Timer("bones-log-filter", true);
+  // used when there are too many statements to give each a bucket of its own
+  private static final String OVERFLOW = "";
+
+  private double rate = 10;
+  private int burst = 100;
+  private String key = LOCATION_KEY;
+  private long summaryInterval = 10_000;
+  private int maxKeys = 10_000;
+  @Getter(AccessLevel.NONE)
+  private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+  @Getter(AccessLevel.NONE)
+  private final AtomicBoolean scheduled = new AtomicBoolean(false);
+  @Getter(AccessLevel.NONE)
+  @Setter(AccessLevel.NONE)
+  private TimerTask summaryTask;
+
+  private class Bucket {
+    private final AtomicLong nextFree;
+    private final LongAdder suppressed = new LongAdder();
+    private volatile Message last;
+
+    Bucket(long now) {
+      nextFree = new AtomicLong(now);
+    }
+
+    /**
+     * Generic cell rate algorithm: nextFree is the time at which the bucket is full again. A
+     * message is accepted when that time does not move more than a full bucket into the future.
+     */
+    boolean tryAcquire(long now) {
+      long interval = getInterval();
+      long limit = interval * burst;
+      while (true) {
+        long current = nextFree.get();
+        long next = Math.max(current, now) + interval;
+        if (next - now > limit) {
+          return false;
+        }
+        if (nextFree.compareAndSet(current, next)) {
+          return true;
+        }
+      }
+    }
+
+    boolean isIdle(long now) {
+      return nextFree.get() - now <= 0 && suppressed.sum() == 0;
+    }
+  }
+
+  private long getInterval() {
+    return Math.max(1, (long) (1_000_000_000 / rate));
+  }
+
+  @Override
+  public boolean accept(Message msg) {
+    String id = keyOf(msg);
+    long now = System.nanoTime();
+    Bucket bucket = buckets.get(id);
+    if (bucket == null) {
+      if (buckets.size() >= maxKeys) {
+        id = OVERFLOW;
+      }
+      bucket = buckets.computeIfAbsent(id, k -> new Bucket(now));
+    }
+    if (bucket.tryAcquire(now)) {
+      return true;
+    }
+    bucket.suppressed.increment();
+    bucket.last = msg;
+    if (!scheduled.get() && scheduled.compareAndSet(false, true)) {
+      schedule();
+    }
+    return false;
+  }
+
+  private String keyOf(Message msg) {
+    if (TEMPLATE_KEY.equals(key)) {
+      return msg.getLogger().getName() + ' ' + msg.getTemplate();
+    }
+    return msg.getLocation();
+  }
+
+  @Override
+  public boolean isLocationRequired() {
+    return LOCATION_KEY.equals(key);
+  }
+
+  /**
+   * The last suppressed message is kept for the summary
+   */
+  @Override
+  public boolean isMessageRetained() {
+    return true;
+  }
+
+  private synchronized void schedule() {
+    summaryTask = new TimerTask() {
+      @Override
+      public void run() {
+        summarize();
+      }
+    };
+    SUMMARY_TIMER.schedule(summaryTask, summaryInterval, summaryInterval);
+  }
+
+  /**
+   * Write a summary for every statement that suppressed messages since the last summary and
+   * remove the buckets that are full again
+   */
+  void summarize() {
+    long now = System.nanoTime();
+    Iterator<Bucket> i = buckets.values().iterator();
+    while (i.hasNext()) {
+      Bucket bucket = i.next();
+      long count = bucket.suppressed.sumThenReset();
+      Message last = bucket.last;
+      if (count > 0 && last != null) {
+        Message summary = new Message(last.getLogger(), last.getLevel(),
+            () -> "suppressed " + count + " similar messages, last: " + last.getMessage());
+        summary.setLocation(last.getLocation());
+        summary.with("suppressed", count);
+        last.getLogger().appendUnfiltered(summary);
+      } else if (bucket.isIdle(now)) {
+        i.remove();
+      }
+    }
+  }
+
+  @Override
+  public synchronized void close() {
+    if (summaryTask != null) {
+      summaryTask.cancel();
+      summaryTask = null;
+    }
+    summarize();
+    scheduled.set(false);
+  }
+
+  @Override
+  public void init(Properties properties) throws IOException {
+    initProperty(properties, "rate", value -> rate = Double.parseDouble(value));
+    initProperty(properties, "burst", value -> burst = Integer.parseInt(value));
+    initProperty(properties, "key", value -> {
+      if (!LOCATION_KEY.equals(value) && !TEMPLATE_KEY.equals(value)) {
+        throw new IllegalArgumentException("key must be location or template");
+      }
+      key = value;
+    });
+    initProperty(properties, "summaryInterval",
+        value -> summaryInterval = Long.parseLong(value));
+    initProperty(properties, "maxKeys", value -> maxKeys = Integer.parseInt(value));
+  }
+}
@@ -0,0 +1,81 @@
+package com.palisand.bones.log;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free queue for multiple producers and consumers. Every slot carries a sequence
+ * number that tells producers and consumers whether the slot is free or filled for their position,
+ * so claiming a slot is a single compare-and-set on the head or tail counter.
+ */
+final class RingBuffer<T> {
+  private final int mask;
+  private final AtomicReferenceArray<T> elements;
+  private final AtomicLongArray sequences;
+  private final AtomicLong head = new AtomicLong();
+  private final AtomicLong tail = new AtomicLong();
+
+  RingBuffer(int requestedCapacity) {
+    int capacity = Integer.highestOneBit(Math.max(1, requestedCapacity - 1)) << 1;
+    mask = capacity - 1;
+    elements = new AtomicReferenceArray<>(capacity);
+    sequences = new AtomicLongArray(capacity);
+    for (int i = 0; i < capacity; ++i) {
+      sequences.set(i, i);
+    }
+  }
+
+  boolean offer(T element) {
+    long pos = tail.get();
+    while (true) {
+      int index = (int) pos & mask;
+      long diff = sequences.get(index) - pos;
+      if (diff == 0) {
+        if (tail.compareAndSet(pos, pos + 1)) {
+          elements.set(index, element);
+          sequences.set(index, pos + 1);
+          return true;
+        }
+        pos = tail.get();
+      } else if (diff < 0) {
+        return false;
+      } else {
+        pos = tail.get();
+      }
+    }
+  }
+
+  T poll() {
+    long pos = head.get();
+    while (true) {
+      int index = (int) pos & mask;
+      long diff = sequences.get(index) - (pos + 1);
+      if (diff == 0) {
+        if (head.compareAndSet(pos, pos + 1)) {
+          T element = elements.get(index);
+          elements.set(index, null);
+          sequences.set(index, pos + mask + 1);
+          return element;
+        }
+        pos = head.get();
+      } else if (diff < 0) {
+        return null;
+      } else {
+        pos = head.get();
+      }
+    }
+  }
+
+  boolean isEmpty() {
+    return head.get() >= tail.get();
+  }
+
+  int size() {
+    return (int) Math.max(0, Math.min(tail.get() - head.get(), capacity()));
+  }
+
+  int capacity() {
+    return mask + 1;
+  }
+}
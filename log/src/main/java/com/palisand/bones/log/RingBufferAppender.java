@@ -0,0 +1,215 @@
+package com.palisand.bones.log;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Appender that keeps the last messages in memory and only writes them to another appender when a
+ * message arrives with the dump level or a more severe one, or when {@link #dump()} is called. Give
+ * it a low level like TRACE to have the details that led to an error without writing them all the
+ * time. Template arguments that can still change are kept as text when a message arrives, but the
+ * text of a message is only formatted when it is written.
+ *
+ * <p>
+ * The buffer is global or, with 'perThread' set, one for every thread. Per thread, an error only
+ * writes the messages of the thread that logged it. When a thread starts logging, the messages of
+ * threads that ended are moved to one shared buffer, so a pool that replaces its threads does not
+ * keep a buffer for every thread it ever had. The wrapped appender is configured with the
+ * property 'appender' and receives all other properties except 'level'.
+ *
+ * <pre>
+ * bones.log.appenders=com.palisand.bones.log.RingBufferAppender
+ * bones.log.com.palisand.bones.log.RingBufferAppender.level=TRACE
+ * bones.log.com.palisand.bones.log.RingBufferAppender.size=1000
+ * bones.log.com.palisand.bones.log.RingBufferAppender.appender=com.palisand.bones.log.FileAppender
+ * bones.log.com.palisand.bones.log.RingBufferAppender.file=log/errors.log
+ * </pre>
+ */
+public class RingBufferAppender extends Appender {
+  @Getter
+  @Setter
+  private Appender appender;
+  @Getter
+  @Setter
+  private int size = 1024;
+  @Getter
+  @Setter
+  private boolean perThread = false;
+  @Getter
+  @Setter
+  private Level dumpLevel = Level.ERROR;
+
+  private volatile Slots global;
+  private final ThreadLocal<Slots> local = ThreadLocal.withInitial(this::register);
+  private final ConcurrentLinkedQueue<Slots> threadSlots = new ConcurrentLinkedQueue<>();
+
+  /**
+   * Circular buffer of messages. The slots are allocated once and a slot is cleared when its
+   * message is written, so a message is not written twice.
+   */
+  private static final class Slots {
+    private final AtomicReferenceArray<Message> messages;
+    private final AtomicLong next = new AtomicLong();
+    private final WeakReference<Thread> owner;
+
+    Slots(int size, Thread owner) {
+      messages = new AtomicReferenceArray<>(size);
+      this.owner = new WeakReference<>(owner);
+    }
+
+    void add(Message msg) {
+      messages.lazySet((int) (next.getAndIncrement() % messages.length()), msg);
+    }
+
+    void drainTo(List<Message> result) {
+      long end = next.get();
+      for (long seq = Math.max(0, end - messages.length()); seq < end; ++seq) {
+        Message msg = messages.getAndSet((int) (seq % messages.length()), null);
+        if (msg != null) {
+          result.add(msg);
+        }
+      }
+    }
+
+    boolean isOwnerAlive() {
+      Thread thread = owner.get();
+      return thread != null && thread.isAlive();
+    }
+  }
+
+  public RingBufferAppender() {}
+
+  public RingBufferAppender(Appender appender) {
+    this.appender = appender;
+  }
+
+  @Override
+  public void init(Properties properties) throws IOException {
+    super.init(properties);
+    initProperty(properties, "size", value -> size = Integer.parseInt(value));
+    initProperty(properties, "perThread", value -> perThread = Boolean.parseBoolean(value));
+    initProperty(properties, "dumpLevel", value -> dumpLevel = Level.valueOf(value));
+    // the level selects the messages to keep, the wrapped appender writes all of them
+    appender = createDelegate(properties, "size", "perThread", "dumpLevel", "level");
+  }
+
+  private Slots register() {
+    List<Message> ended = new ArrayList<>();
+    threadSlots.removeIf(slots -> {
+      if (slots.isOwnerAlive()) {
+        return false;
+      }
+      slots.drainTo(ended);
+      return true;
+    });
+    if (!ended.isEmpty()) {
+      ended.sort(Comparator.comparingLong(Message::getEpochSecond)
+          .thenComparingInt(Message::getNano));
+      Slots shared = getGlobal();
+      ended.forEach(shared::add);
+    }
+    Slots slots = new Slots(size, Thread.currentThread());
+    threadSlots.add(slots);
+    return slots;
+  }
+
+  private Slots getSlots() {
+    return perThread ? local.get() : getGlobal();
+  }
+
+  private Slots getGlobal() {
+    Slots result = global;
+    if (result == null) {
+      synchronized (this) {
+        if (global == null) {
+          global = new Slots(size, null);
+        }
+        result = global;
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public void log(Message msg) {
+    if (!isEnabled(msg.getLevel())) {
+      return;
+    }
+    // the message may be written long after it is logged, most messages never are
+    msg.snapshotArguments();
+    Slots slots = getSlots();
+    slots.add(msg);
+    if (msg.getLevel().ordinal() <= dumpLevel.ordinal()) {
+      dump(List.of(slots));
+    }
+  }
+
+  /**
+   * Write all messages in the buffers to the wrapped appender and empty the buffers
+   */
+  public void dump() {
+    List<Slots> all = new ArrayList<>(threadSlots);
+    Slots current = global;
+    if (current != null) {
+      all.add(current);
+    }
+    dump(all);
+    // forget the buffers of threads that are gone, they are empty now
+    threadSlots.removeIf(slots -> !slots.isOwnerAlive());
+  }
+
+  private synchronized void dump(List<Slots> buffers) {
+    if (appender == null) {
+      throw new IllegalStateException("RingBufferAppender has no appender to send messages to");
+    }
+    List<Message> messages = new ArrayList<>();
+    buffers.forEach(slots -> slots.drainTo(messages));
+    if (buffers.size() > 1) {
+      messages.sort(Comparator.comparingLong(Message::getEpochSecond)
+          .thenComparingInt(Message::getNano));
+    }
+    for (Message msg : messages) {
+      appender.append(msg);
+    }
+  }
+
+  @Override
+  public void close() {
+    if (appender != null) {
+      appender.close();
+    }
+  }
+
+  @Override
+  public boolean isMessageRetained() {
+    return true;
+  }
+
+  @Override
+  public Appender getDelegate() {
+    return appender;
+  }
+
+  @Override
+  public boolean isLocationRequired() {
+    return appender != null && appender.isLocationRequired();
+  }
+
+  @Override
+  public void setFormat(String pattern) {
+    super.setFormat(pattern);
+    if (appender != null) {
+      appender.setFormat(pattern);
+    }
+  }
+
+}
@@ -0,0 +1,450 @@
+package com.palisand.bones.log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Appender that splits the messages over files, like a file per tenant. The 'file' property is a
+ * pattern in which ${logger} is replaced by the name of the logger, ${context.name} by a value of
+ * the context and ${name} by the field with that name, or else the context value with that name.
+ * Messages without the value go to the file with the 'defaultValue'. Characters other than
+ * letters, digits, '.', '_' and '-' in values are replaced by '_'.
+ *
+ * <p>
+ * Every file is written by its own {@link FileAppender}, or the appender class in the 'appender'
+ * property, that gets all other properties, so rotation, compression and buffering work the same.
+ * Properties that start with 'appender.' are passed without that prefix, like 'appender.appender'
+ * for the appender that an {@link AsyncAppender} per file wraps. At most 'maxOpenFiles' files are
+ * open: the least recently used file is closed to open another one. Files that received no
+ * messages for 'idleTimeout' milliseconds are closed as well. Files are opened and closed without
+ * holding up the threads that log to other files.
+ *
+ * <pre>
+ * bones.log.appenders=com.palisand.bones.log.RoutingFileAppender
+ * bones.log.com.palisand.bones.log.RoutingFileAppender.file=log/${tenant}.log
+ * bones.log.com.palisand.bones.log.RoutingFileAppender.maxOpenFiles=100
+ * bones.log.com.palisand.bones.log.RoutingFileAppender.rotation=DAYS
+ * </pre>
+ */
+@Getter
+@Setter
+public class RoutingFileAppender extends Appender {
+  private static final Pattern VARIABLE = Pattern.compile("\\$\\{([\\w.-]+)\\}");
+  private static final String CONTEXT_PREFIX = "context.";
+  private static final String APPENDER_PREFIX = "appender.";
+  private static final Set<String> OWN_PROPERTIES =
+      Set.of("appender", "defaultValue", "maxOpenFiles", "idleTimeout");
+  private static final Timer IDLE_TIMER = new Timer("bones-log-routing", true);
+
+  private String file;
+  private String appender = FileAppender.class.getName();
+  private String defaultValue = "default";
+  private int maxOpenFiles = 64;
+  private long idleTimeout = 60_000;
+
+  @Getter(AccessLevel.NONE)
+  @Setter(AccessLevel.NONE)
+  private final Properties routeProperties = new Properties();
+  // the pattern split in literals and variables, the variables are at the odd indexes
+  @Getter(AccessLevel.NONE)
+  @Setter(AccessLevel.NONE)
+  private String[] parts;
+  // the open files in the order of their last use, guarded by the lock of the map
+  @Getter(AccessLevel.NONE)
+  @Setter(AccessLevel.NONE)
+  private final LinkedHashMap<String, Route> routes = new LinkedHashMap<>(16, 0.75f, true);
+  @Getter(AccessLevel.NONE)
+  @Setter(AccessLevel.NONE)
+  private TimerTask idleTask;
+  @Getter(AccessLevel.NONE)
+  @Setter(AccessLevel.NONE)
+  private boolean closed = false;
+  // whether the appenders of the files keep messages or need their location, as far as known
+  @Getter(AccessLevel.NONE)
+  @Setter(AccessLevel.NONE)
+  private volatile boolean retained = false;
+  @Getter(AccessLevel.NONE)
+  @Setter(AccessLevel.NONE)
+  private volatile boolean routeLocationRequired = false;
+
+  /**
+   * A file. The appender is null while the thread that added the route opens the file, other
+   * threads wait for it. The file is closed by the last thread that uses it once it is removed from
+   * the routes. All fields are guarded by the lock of the routes.
+   */
+  private static final class Route {
+    private Appender appender;
+    private int users = 0;
+    private long lastUsed;
+    private boolean removed = false;
+  }
+
+  @Override
+  public void init(Properties properties) throws IOException {
+    super.init(properties);
+    initProperty(properties, "appender", value -> setAppender(value));
+    initProperty(properties, "defaultValue", value -> defaultValue = value);
+    initProperty(properties, "maxOpenFiles", value -> maxOpenFiles = Integer.parseInt(value));
+    initProperty(properties, "idleTimeout", value -> idleTimeout = Long.parseLong(value));
+    for (String name : properties.stringPropertyNames()) {
+      if (!OWN_PROPERTIES.contains(name) && !name.startsWith(APPENDER_PREFIX)) {
+        routeProperties.setProperty(name, properties.getProperty(name));
+      }
+    }
+    // the properties with the prefix are only for the appenders of the files and win
+    for (String name : properties.stringPropertyNames()) {
+      if (name.startsWith(APPENDER_PREFIX)) {
+        routeProperties.setProperty(name.substring(APPENDER_PREFIX.length()),
+            properties.getProperty(name));
+      }
+    }
+    String pattern = properties.getProperty("file");
+    if (pattern == null) {
+      throw new IOException("RoutingFileAppender needs a 'file' property");
+    }
+    setFile(pattern.trim());
+  }
+
+  /**
+   * Set the class of the appender of every file. Whether messages are retained is taken from the
+   * class right away, so loggers do not reuse messages that an {@link AsyncAppender} per file would
+   * keep.
+   */
+  public void setAppender(String className) {
+    Appender prototype;
+    try {
+      prototype = (Appender) Class.forName(className).getConstructor().newInstance();
+    } catch (ReflectiveOperationException | ClassCastException ex) {
+      throw new IllegalArgumentException("Not an appender class: " + className, ex);
+    }
+    appender = className;
+    retained = prototype.isMessageRetained();
+    Logger.reconfigure();
+  }
+
+  @Override
+  public boolean isMessageRetained() {
+    return retained;
+  }
+
+  @Override
+  public boolean isLocationRequired() {
+    return super.isLocationRequired() || routeLocationRequired;
+  }
+
+  /**
+   * Set the pattern of the file names
+   */
+  public void setFile(String pattern) {
+    Matcher m = VARIABLE.matcher(pattern);
+    List<String> list = new ArrayList<>();
+    int last = 0;
+    while (m.find()) {
+      list.add(pattern.substring(last, m.start()));
+      list.add(m.group(1));
+      last = m.end();
+    }
+    list.add(pattern.substring(last));
+    parts = list.toArray(new String[list.size()]);
+    file = pattern;
+  }
+
+  @Override
+  public void log(Message msg) {
+    if (!isEnabled(msg.getLevel()) || parts == null) {
+      return;
+    }
+    String key = keyOf(msg);
+    Route route;
+    List<Route> evicted = null;
+    synchronized (routes) {
+      route = routes.get(key);
+      try {
+        while (route != null && route.appender == null) {
+          // another thread opens the file
+          routes.wait();
+          route = routes.get(key);
+        }
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      if (closed) {
+        return;
+      }
+      if (route == null) {
+        evicted = evict();
+        route = new Route();
+        routes.put(key, route);
+      }
+      ++route.users;
+      route.lastUsed = System.currentTimeMillis();
+    }
+    close(evicted);
+    if (route.appender == null && !open(key, route)) {
+      return;
+    }
+    try {
+      route.appender.append(msg);
+    } finally {
+      release(route);
+    }
+  }
+
+  /**
+   * @return the values of the variables in the file pattern, separated by '/'. With one variable
+   *         in the pattern the value itself is the key, so no text is built for a message.
+   */
+  private String keyOf(Message msg) {
+    if (parts.length == 3) {
+      return valueOf(msg, parts[1]);
+    }
+    StringBuilder key = new StringBuilder();
+    for (int i = 1; i < parts.length; i += 2) {
+      key.append(valueOf(msg, parts[i])).append('/');
+    }
+    return key.toString();
+  }
+
+  private String valueOf(Message msg, String name) {
+    String value;
+    if (name.equals("logger")) {
+      value = msg.getLogger().getName();
+    } else if (name.startsWith(CONTEXT_PREFIX)) {
+      value = msg.getContext().get(name.substring(CONTEXT_PREFIX.length()));
+    } else {
+      int index = msg.indexOfField(name);
+      if (index >= 0) {
+        Object field = msg.getFieldValue(index);
+        value = field != null ? field.toString() : null;
+      } else {
+        value = msg.getContext().get(name);
+      }
+    }
+    return sanitize(value);
+  }
+
+  /**
+   * @return the value with only characters that are safe in a file name, or the default value
+   */
+  private String sanitize(String value) {
+    if (value == null || isDots(value)) {
+      // an empty value or '..' would not name a file of its own
+      return defaultValue;
+    }
+    for (int i = 0; i < value.length(); ++i) {
+      if (!isSafe(value.charAt(i))) {
+        StringBuilder result = new StringBuilder(value);
+        for (int j = i; j < result.length(); ++j) {
+          if (!isSafe(result.charAt(j))) {
+            result.setCharAt(j, '_');
+          }
+        }
+        return result.toString();
+      }
+    }
+    return value;
+  }
+
+  private static boolean isDots(String value) {
+    for (int i = 0; i < value.length(); ++i) {
+      if (value.charAt(i) != '.') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isSafe(char c) {
+    return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '.'
+        || c == '_' || c == '-';
+  }
+
+  /**
+   * Remove the least recently used files while the maximum number of files is open. Called while
+   * holding the lock of the routes.
+   *
+   * @return the routes to close once the lock is released
+   */
+  private List<Route> evict() {
+    List<Route> result = new ArrayList<>();
+    while (!routes.isEmpty() && routes.size() >= maxOpenFiles) {
+      Iterator<Route> eldest = routes.values().iterator();
+      Route route = eldest.next();
+      eldest.remove();
+      remove(route, result);
+    }
+    return result;
+  }
+
+  /**
+   * Open the file of a route that was added by this thread. Threads that wait for the route are
+   * woken when the file is open or when opening failed, in which case the route is removed.
+   */
+  private boolean open(String key, Route route) {
+    String[] values = parts.length == 3 ? new String[] {key} : key.split("/");
+    StringBuilder path = new StringBuilder(parts[0]);
+    for (int i = 1; i < parts.length; i += 2) {
+      path.append(values[i / 2]).append(parts[i + 1]);
+    }
+    Properties properties = new Properties();
+    properties.putAll(routeProperties);
+    properties.setProperty("file", path.toString());
+    Appender opened = null;
+    try {
+      // values can name directories, like ${logger}/${component}.log
+      File parent = new File(path.toString()).getAbsoluteFile().getParentFile();
+      if (parent != null) {
+        Files.createDirectories(parent.toPath());
+      }
+      opened = Appender.create(appender, properties);
+    } catch (ReflectiveOperationException | IOException | RuntimeException ex) {
+      addFailure();
+      System.err.println("Could not open log file " + path);
+      ex.printStackTrace();
+    }
+    synchronized (routes) {
+      if (opened != null) {
+        route.appender = opened;
+        scheduleIdleTask();
+      } else {
+        --route.users;
+        if (routes.get(key) == route) {
+          routes.remove(key);
+        }
+      }
+      routes.notifyAll();
+    }
+    if (opened != null) {
+      checkRequirements(opened);
+    }
+    return opened != null;
+  }
+
+  /**
+   * Let the loggers know when the appender of a file needs more than this appender reported
+   */
+  private void checkRequirements(Appender opened) {
+    boolean changed = false;
+    if (!retained && opened.isMessageRetained()) {
+      retained = true;
+      changed = true;
+    }
+    if (!routeLocationRequired && opened.isLocationRequired()) {
+      routeLocationRequired = true;
+      changed = true;
+    }
+    if (changed) {
+      Logger.reconfigure();
+    }
+  }
+
+  private void release(Route route) {
+    boolean close;
+    synchronized (routes) {
+      close = --route.users == 0 && route.removed;
+    }
+    if (close) {
+      route.appender.close();
+    }
+  }
+
+  /**
+   * Mark a route that was taken out of the routes as removed and add it to the routes to close when
+   * no thread uses it. Called while holding the lock of the routes.
+   */
+  private static void remove(Route route, List<Route> close) {
+    route.removed = true;
+    if (route.users == 0) {
+      close.add(route);
+    }
+  }
+
+  private static void close(List<Route> routes) {
+    if (routes != null) {
+      for (Route route : routes) {
+        route.appender.close();
+      }
+    }
+  }
+
+  /**
+   * Schedule closing idle files. Called while holding the lock of the routes, a file that is opened
+   * while the appender is closed must not schedule a task that nothing cancels.
+   */
+  private void scheduleIdleTask() {
+    if (idleTask == null && idleTimeout > 0 && !closed) {
+      idleTask = new TimerTask() {
+        @Override
+        public void run() {
+          closeIdleFiles();
+        }
+      };
+      IDLE_TIMER.schedule(idleTask, idleTimeout, idleTimeout);
+    }
+  }
+
+  /**
+   * Close the files that did not receive messages for the idle timeout
+   */
+  void closeIdleFiles() {
+    long limit = System.currentTimeMillis() - idleTimeout;
+    List<Route> idle = new ArrayList<>();
+    synchronized (routes) {
+      // the least recently used files come first
+      Iterator<Route> i = routes.values().iterator();
+      while (i.hasNext()) {
+        Route route = i.next();
+        if (route.lastUsed > limit) {
+          break;
+        }
+        i.remove();
+        remove(route, idle);
+      }
+    }
+    close(idle);
+  }
+
+  /**
+   * @return the number of files that are open
+   */
+  public int getOpenFileCount() {
+    synchronized (routes) {
+      return routes.size();
+    }
+  }
+
+  @Override
+  public void close() {
+    List<Route> open = new ArrayList<>();
+    synchronized (routes) {
+      closed = true;
+      if (idleTask != null) {
+        idleTask.cancel();
+        idleTask = null;
+        IDLE_TIMER.purge();
+      }
+      for (Route route : routes.values()) {
+        remove(route, open);
+      }
+      routes.clear();
+      routes.notifyAll();
+    }
+    close(open);
+  }
+
+}
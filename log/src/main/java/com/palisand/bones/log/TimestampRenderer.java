@@ -0,0 +1,85 @@
+package com.palisand.bones.log;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import lombok.Getter;
+
+/**
+ * Renders timestamps with a DateTimeFormatter pattern in a time zone. The text for the current
+ * second is cached, so most timestamps are rendered by appending the cached text and, when the
+ * pattern ends with milliseconds, three digits.
+ */
+public final class TimestampRenderer {
+  public static final TimestampRenderer DATE = new TimestampRenderer("yyyy-MM-dd", ZoneOffset.UTC);
+  public static final TimestampRenderer TIME =
+      new TimestampRenderer("HH:mm:ss.SSS", ZoneOffset.UTC);
+
+  private static final String MILLIS = "SSS";
+
+  @Getter
+  private final String pattern;
+  @Getter
+  private final ZoneId zone;
+  private final DateTimeFormatter formatter;
+  private final boolean cacheable;
+  private final boolean appendMillis;
+  private volatile Cache cache = new Cache(Long.MIN_VALUE, null);
+
+  private record Cache(long second, String text) {}
+
+  public TimestampRenderer(String pattern, ZoneId zone) {
+    this.pattern = pattern;
+    this.zone = zone;
+    String prefix = pattern.substring(0, Math.max(0, pattern.length() - MILLIS.length()));
+    if (pattern.endsWith(MILLIS) && !hasFractionOfSecond(prefix)) {
+      appendMillis = true;
+      cacheable = true;
+      formatter = DateTimeFormatter.ofPattern(prefix).withZone(zone);
+    } else {
+      appendMillis = false;
+      cacheable = !hasFractionOfSecond(pattern);
+      formatter = DateTimeFormatter.ofPattern(pattern).withZone(zone);
+    }
+  }
+
+  private static boolean hasFractionOfSecond(String pattern) {
+    String unquoted = pattern.replaceAll("'[^']*'", "");
+    return unquoted.indexOf('S') != -1 || unquoted.indexOf('n') != -1
+        || unquoted.indexOf('N') != -1 || unquoted.indexOf('A') != -1;
+  }
+
+  public void append(StringBuilder out, Instant timestamp) {
+    append(out, timestamp.getEpochSecond(), timestamp.getNano());
+  }
+
+  /**
+   * Append the timestamp given as seconds since the epoch and nanoseconds within the second
+   */
+  public void append(StringBuilder out, long second, int nano) {
+    if (!cacheable) {
+      formatter.formatTo(Instant.ofEpochSecond(second, nano), out);
+      return;
+    }
+    Cache current = cache;
+    if (current.second != second) {
+      current = new Cache(second, formatter.format(Instant.ofEpochSecond(second)));
+      cache = current;
+    }
+    out.append(current.text);
+    if (appendMillis) {
+      int millis = nano / 1_000_000;
+      if (millis < 100) {
+        out.append(millis < 10 ? "00" : "0");
+      }
+      out.append(millis);
+    }
+  }
+
+  public String format(Instant timestamp) {
+    StringBuilder out = new StringBuilder(pattern.length() + 8);
+    append(out, timestamp);
+    return out.toString();
+  }
+}
@@ -0,0 +1,62 @@
+package com.palisand.bones.log;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes characters as UTF-8 straight into a ByteBuffer. When the buffer is full it is handed to a
+ * sink that writes its content, so text of any length can be encoded without intermediate arrays.
+ */
+final class Utf8Encoder {
+
+  /**
+   * @param <E> the exception that writing can throw
+   */
+  interface Sink<E extends Exception> {
+    /**
+     * Write the bytes between the start of the buffer and its position and clear it
+     */
+    void drain(ByteBuffer buffer) throws E;
+  }
+
+  private Utf8Encoder() {}
+
+  /**
+   * @return the number of bytes written
+   */
+  static <E extends Exception> int encode(CharSequence chars, ByteBuffer buffer, Sink<E> sink)
+      throws E {
+    int count = 0;
+    int length = chars.length();
+    for (int i = 0; i < length; ++i) {
+      if (buffer.remaining() < 4) {
+        sink.drain(buffer);
+      }
+      char c = chars.charAt(i);
+      if (c < 0x80) {
+        buffer.put((byte) c);
+        count += 1;
+      } else if (c < 0x800) {
+        buffer.put((byte) (0xc0 | c >> 6));
+        buffer.put((byte) (0x80 | c & 0x3f));
+        count += 2;
+      } else if (Character.isHighSurrogate(c) && i + 1 < length
+          && Character.isLowSurrogate(chars.charAt(i + 1))) {
+        int codePoint = Character.toCodePoint(c, chars.charAt(++i));
+        buffer.put((byte) (0xf0 | codePoint >> 18));
+        buffer.put((byte) (0x80 | codePoint >> 12 & 0x3f));
+        buffer.put((byte) (0x80 | codePoint >> 6 & 0x3f));
+        buffer.put((byte) (0x80 | codePoint & 0x3f));
+        count += 4;
+      } else if (Character.isSurrogate(c)) {
+        buffer.put((byte) '?');
+        count += 1;
+      } else {
+        buffer.put((byte) (0xe0 | c >> 12));
+        buffer.put((byte) (0x80 | c >> 6 & 0x3f));
+        buffer.put((byte) (0x80 | c & 0x3f));
+        count += 3;
+      }
+    }
+    return count;
+  }
+}
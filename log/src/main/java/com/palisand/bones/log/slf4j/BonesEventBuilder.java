@@ -0,0 +1,159 @@
+package com.palisand.bones.log.slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+import org.slf4j.Marker;
+import org.slf4j.spi.LoggingEventBuilder;
+import com.palisand.bones.log.Level;
+import com.palisand.bones.log.Logger;
+import com.palisand.bones.log.Message;
+
+/**
+ * The fluent Slf4j API on top of a {@link Message}. The message is created with the builder, so key
+ * values are added to it as fields right away. The text is formatted by the message when an
+ * appender needs it.
+ */
+final class BonesEventBuilder implements LoggingEventBuilder, Message.Template {
+  private final Message message;
+  private String pattern;
+  private Supplier<String> text;
+  private List<Object> arguments;
+  private Throwable cause;
+  private String markers;
+
+  BonesEventBuilder(Logger logger, Level level) {
+    message = logger.at(level, (Supplier<String>) this);
+  }
+
+  @Override
+  public String get() {
+    return text == null ? pattern : text.get();
+  }
+
+  @Override
+  public String getTemplate() {
+    return pattern != null ? pattern : get();
+  }
+
+  @Override
+  public Object[] getArguments() {
+    return text instanceof Message.Template template ? template.getArguments() : null;
+  }
+
+  @Override
+  public LoggingEventBuilder setCause(Throwable cause) {
+    this.cause = cause;
+    return this;
+  }
+
+  @Override
+  public LoggingEventBuilder addMarker(Marker marker) {
+    if (marker != null) {
+      markers = markers == null ? marker.getName() : markers + "," + marker.getName();
+    }
+    return this;
+  }
+
+  @Override
+  public LoggingEventBuilder addArgument(Object argument) {
+    if (arguments == null) {
+      arguments = new ArrayList<>(4);
+    }
+    arguments.add(argument);
+    return this;
+  }
+
+  @Override
+  public LoggingEventBuilder addArgument(Supplier<?> argumentSupplier) {
+    return addArgument(argumentSupplier.get());
+  }
+
+  @Override
+  public LoggingEventBuilder addKeyValue(String key, Object value) {
+    message.with(key, value);
+    return this;
+  }
+
+  @Override
+  public LoggingEventBuilder addKeyValue(String key, Supplier<Object> valueSupplier) {
+    return addKeyValue(key, valueSupplier.get());
+  }
+
+  @Override
+  public LoggingEventBuilder setMessage(String message) {
+    pattern = message;
+    text = null;
+    return this;
+  }
+
+  @Override
+  public LoggingEventBuilder setMessage(Supplier<String> messageSupplier) {
+    pattern = null;
+    text = messageSupplier;
+    return this;
+  }
+
+  @Override
+  public void log() {
+    if (arguments != null) {
+      Object[] args = arguments.toArray();
+      if (cause == null) {
+        cause = ParameterizedMessage.getThrowableCandidate(args);
+        if (cause != null) {
+          args = Arrays.copyOf(args, args.length - 1);
+        }
+      }
+      if (pattern != null && args.length != 0) {
+        text = new ParameterizedMessage(pattern, args);
+      }
+    }
+    if (markers != null) {
+      message.with(BonesLogger.MARKER_FIELD, markers);
+    }
+    if (cause != null) {
+      message.with(cause);
+    }
+    message.log();
+  }
+
+  @Override
+  public void log(String message) {
+    setMessage(message);
+    log();
+  }
+
+  @Override
+  public void log(String message, Object arg) {
+    setMessage(message);
+    addArgument(arg);
+    log();
+  }
+
+  @Override
+  public void log(String message, Object arg1, Object arg2) {
+    setMessage(message);
+    addArgument(arg1);
+    addArgument(arg2);
+    log();
+  }
+
+  @Override
+  public void log(String message, Object... args) {
+    setMessage(message);
+    if (args != null) {
+      for (Object arg : args) {
+        addArgument(arg);
+      }
+    }
+    log();
+  }
+
+  @Override
+  public void log(Supplier<String> messageSupplier) {
+    setMessage(messageSupplier);
+    log();
+  }
+
+}
@@ -1,13 +1,19 @@
 package com.palisand.bones.log.slf4j;
 
+import java.util.concurrent.ConcurrentHashMap;
 import org.slf4j.ILoggerFactory;
 import org.slf4j.Logger;
 
 public class BonesFactory implements ILoggerFactory {
+  private final ConcurrentHashMap<String, BonesLogger> loggers = new ConcurrentHashMap<>();
 
   @Override
   public Logger getLogger(String name) {
-    return new BonesLogger(name);
+    BonesLogger result = loggers.get(name);
+    if (result == null) {
+      result = loggers.computeIfAbsent(name, BonesLogger::new);
+    }
+    return result;
   }
 
 }
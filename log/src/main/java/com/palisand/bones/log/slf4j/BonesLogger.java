@@ -1,12 +1,19 @@
 package com.palisand.bones.log.slf4j;
 
+import java.util.Arrays;
 import org.slf4j.Marker;
 import org.slf4j.event.Level;
 import org.slf4j.helpers.AbstractLogger;
+import org.slf4j.spi.LoggingEventBuilder;
+import org.slf4j.spi.NOPLoggingEventBuilder;
 import com.palisand.bones.log.Message;
 
 public class BonesLogger extends AbstractLogger {
   private static final long serialVersionUID = 8897081851691172239L;
+  /**
+   * The name of the message field that holds the name of the marker of a log statement
+   */
+  public static final String MARKER_FIELD = "marker";
   private final com.palisand.bones.log.Logger logger;
 
   public BonesLogger(String name) {
@@ -20,7 +27,7 @@ public class BonesLogger extends AbstractLogger {
 
   @Override
   public boolean isTraceEnabled(Marker marker) {
-    return false;
+    return isTraceEnabled();
   }
 
   @Override
@@ -30,7 +37,7 @@ public class BonesLogger extends AbstractLogger {
 
   @Override
   public boolean isDebugEnabled(Marker marker) {
-    return false;
+    return isDebugEnabled();
   }
 
   @Override
@@ -40,7 +47,7 @@ public class BonesLogger extends AbstractLogger {
 
   @Override
   public boolean isInfoEnabled(Marker marker) {
-    return false;
+    return isInfoEnabled();
   }
 
   @Override
@@ -50,7 +57,7 @@ public class BonesLogger extends AbstractLogger {
 
   @Override
   public boolean isWarnEnabled(Marker marker) {
-    return false;
+    return isWarnEnabled();
   }
 
   @Override
@@ -60,7 +67,26 @@ public class BonesLogger extends AbstractLogger {
 
   @Override
   public boolean isErrorEnabled(Marker marker) {
-    return false;
+    return isErrorEnabled();
+  }
+
+  @Override
+  public boolean isEnabledForLevel(Level level) {
+    return logger.isEnabled(toLevel(level));
+  }
+
+  @Override
+  public LoggingEventBuilder atLevel(Level level) {
+    com.palisand.bones.log.Level bonesLevel = toLevel(level);
+    if (!logger.isEnabled(bonesLevel)) {
+      return NOPLoggingEventBuilder.singleton();
+    }
+    return new BonesEventBuilder(logger, bonesLevel);
+  }
+
+  @Override
+  public LoggingEventBuilder makeLoggingEventBuilder(Level level) {
+    return new BonesEventBuilder(logger, toLevel(level));
   }
 
   @Override
@@ -71,31 +97,33 @@ public class BonesLogger extends AbstractLogger {
   @Override
   protected void handleNormalizedLoggingCall(Level level, Marker marker, String messagePattern,
       Object[] arguments, Throwable throwable) {
-    String msg = messagePattern;
-    if (arguments != null && arguments.length != 0) {
-      msg = String.format(messagePattern.replace("{}", "%s"), arguments);
+    if (throwable == null) {
+      // a single argument is not normalized by AbstractLogger
+      throwable = ParameterizedMessage.getThrowableCandidate(arguments);
+      if (throwable != null) {
+        arguments = Arrays.copyOf(arguments, arguments.length - 1);
+      }
+    }
+    Message message = logger.at(toLevel(level),
+        arguments == null || arguments.length == 0 ? () -> messagePattern
+            : new ParameterizedMessage(messagePattern, arguments));
+    if (marker != null) {
+      message.with(MARKER_FIELD, marker.getName());
     }
-    Message message = logger.log(msg);
     if (throwable != null) {
       message.with(throwable);
     }
-    switch (level) {
-      case TRACE:
-        message.trace();
-        break;
-      case DEBUG:
-        message.debug();
-        break;
-      case INFO:
-        message.info();
-        break;
-      case WARN:
-        message.warn();
-        break;
-      case ERROR:
-        message.error();
-        break;
-    }
+    message.log();
+  }
+
+  private static com.palisand.bones.log.Level toLevel(Level level) {
+    return switch (level) {
+      case TRACE -> com.palisand.bones.log.Level.TRACE;
+      case DEBUG -> com.palisand.bones.log.Level.DEBUG;
+      case INFO -> com.palisand.bones.log.Level.INFO;
+      case WARN -> com.palisand.bones.log.Level.WARN;
+      case ERROR -> com.palisand.bones.log.Level.ERROR;
+    };
   }
 
 }
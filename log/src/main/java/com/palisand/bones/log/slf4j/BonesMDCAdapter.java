@@ -0,0 +1,67 @@
+package com.palisand.bones.log.slf4j;
+
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import org.slf4j.helpers.ThreadLocalMapOfStacks;
+import org.slf4j.spi.MDCAdapter;
+import com.palisand.bones.log.LogContext;
+
+/**
+ * MDC that stores its values in the {@link LogContext} of the thread, so they are added to every
+ * message the thread logs
+ */
+public class BonesMDCAdapter implements MDCAdapter {
+  private final ThreadLocalMapOfStacks stacks = new ThreadLocalMapOfStacks();
+
+  @Override
+  public void put(String key, String val) {
+    LogContext.put(key, val);
+  }
+
+  @Override
+  public String get(String key) {
+    return LogContext.get(key);
+  }
+
+  @Override
+  public void remove(String key) {
+    LogContext.remove(key);
+  }
+
+  @Override
+  public void clear() {
+    LogContext.clear();
+  }
+
+  @Override
+  public Map<String, String> getCopyOfContextMap() {
+    return new HashMap<>(LogContext.getMap());
+  }
+
+  @Override
+  public void setContextMap(Map<String, String> contextMap) {
+    LogContext.setMap(contextMap);
+  }
+
+  @Override
+  public void pushByKey(String key, String value) {
+    stacks.pushByKey(key, value);
+  }
+
+  @Override
+  public String popByKey(String key) {
+    return stacks.popByKey(key);
+  }
+
+  @Override
+  public Deque<String> getCopyOfDequeByKey(String key) {
+    return stacks.getCopyOfDequeByKey(key);
+  }
+
+  @Override
+  public void clearDequeByKey(String key) {
+    stacks.clearDequeByKey(key);
+  }
+
+}
@@ -2,12 +2,14 @@ package com.palisand.bones.log.slf4j;
 
 import org.slf4j.ILoggerFactory;
 import org.slf4j.IMarkerFactory;
-import org.slf4j.helpers.NOPMDCAdapter;
+import org.slf4j.helpers.BasicMarkerFactory;
 import org.slf4j.spi.MDCAdapter;
 import org.slf4j.spi.SLF4JServiceProvider;
 
 public class BonesServiceProvider implements SLF4JServiceProvider {
   private static final BonesFactory factory = new BonesFactory();
+  private static final IMarkerFactory markerFactory = new BasicMarkerFactory();
+  private static final MDCAdapter mdcAdapter = new BonesMDCAdapter();
 
   @Override
   public ILoggerFactory getLoggerFactory() {
@@ -16,12 +18,12 @@ public class BonesServiceProvider implements SLF4JServiceProvider {
 
   @Override
   public IMarkerFactory getMarkerFactory() {
-    return null;
+    return markerFactory;
   }
 
   @Override
   public MDCAdapter getMDCAdapter() {
-    return new NOPMDCAdapter();
+    return mdcAdapter;
   }
 
   @Override
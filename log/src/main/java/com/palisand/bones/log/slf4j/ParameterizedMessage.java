@@ -0,0 +1,160 @@
+package com.palisand.bones.log.slf4j;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import com.palisand.bones.log.Message;
+
+/**
+ * The text of an Slf4j log statement. The '{}' placeholders in the pattern are replaced by the
+ * arguments when the text is needed for the first time, so statements that no appender renders are
+ * never formatted.
+ *
+ * <p>
+ * A placeholder preceded by a backslash is written as '{}' without consuming an argument; a double
+ * backslash is written as a single one followed by the argument. Arrays are written with their
+ * elements and placeholders without an argument are kept as they are.
+ */
+public final class ParameterizedMessage implements Message.Template {
+  private static final char ESCAPE = '\\';
+  private static final String PLACEHOLDER = "{}";
+
+  private final String pattern;
+  private final Object[] arguments;
+  private String text;
+
+  public ParameterizedMessage(String pattern, Object... arguments) {
+    this.pattern = pattern;
+    this.arguments = arguments;
+  }
+
+  @Override
+  public String getTemplate() {
+    return pattern;
+  }
+
+  @Override
+  public Object[] getArguments() {
+    return arguments == null ? new Object[0] : arguments.clone();
+  }
+
+  @Override
+  public String get() {
+    String result = text;
+    if (result == null) {
+      result = format(pattern, arguments);
+      text = result;
+    }
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return get();
+  }
+
+  /**
+   * @return the last argument when it is a Throwable, otherwise null
+   */
+  public static Throwable getThrowableCandidate(Object[] arguments) {
+    if (arguments != null && arguments.length != 0
+        && arguments[arguments.length - 1] instanceof Throwable throwable) {
+      return throwable;
+    }
+    return null;
+  }
+
+  public static String format(String pattern, Object... arguments) {
+    if (pattern == null) {
+      return null;
+    }
+    if (arguments == null || arguments.length == 0) {
+      return pattern;
+    }
+    StringBuilder out = new StringBuilder(pattern.length() + 16 * arguments.length);
+    format(out, pattern, arguments);
+    return out.toString();
+  }
+
+  public static void format(StringBuilder out, String pattern, Object... arguments) {
+    int count = arguments == null ? 0 : arguments.length;
+    int start = 0;
+    int arg = 0;
+    while (arg < count) {
+      int index = pattern.indexOf(PLACEHOLDER, start);
+      if (index == -1) {
+        break;
+      }
+      if (isEscaped(pattern, index)) {
+        if (isEscaped(pattern, index - 1)) {
+          // the escape character is escaped itself
+          out.append(pattern, start, index - 1);
+          appendArgument(out, arguments[arg++], null);
+        } else {
+          out.append(pattern, start, index - 1).append(PLACEHOLDER);
+        }
+      } else {
+        out.append(pattern, start, index);
+        appendArgument(out, arguments[arg++], null);
+      }
+      start = index + PLACEHOLDER.length();
+    }
+    out.append(pattern, start, pattern.length());
+  }
+
+  private static boolean isEscaped(String pattern, int index) {
+    return index > 0 && pattern.charAt(index - 1) == ESCAPE;
+  }
+
+  private static void appendArgument(StringBuilder out, Object argument,
+      Map<Object[], Object> seen) {
+    if (argument == null) {
+      out.append("null");
+    } else if (!argument.getClass().isArray()) {
+      appendObject(out, argument);
+    } else if (argument instanceof Object[] array) {
+      appendArray(out, array, seen == null ? new IdentityHashMap<>() : seen);
+    } else if (argument instanceof int[] array) {
+      out.append(Arrays.toString(array));
+    } else if (argument instanceof long[] array) {
+      out.append(Arrays.toString(array));
+    } else if (argument instanceof byte[] array) {
+      out.append(Arrays.toString(array));
+    } else if (argument instanceof char[] array) {
+      out.append(Arrays.toString(array));
+    } else if (argument instanceof short[] array) {
+      out.append(Arrays.toString(array));
+    } else if (argument instanceof boolean[] array) {
+      out.append(Arrays.toString(array));
+    } else if (argument instanceof float[] array) {
+      out.append(Arrays.toString(array));
+    } else if (argument instanceof double[] array) {
+      out.append(Arrays.toString(array));
+    }
+  }
+
+  private static void appendObject(StringBuilder out, Object argument) {
+    try {
+      out.append(argument);
+    } catch (RuntimeException ex) {
+      // a failing toString should not make the log statement fail
+      out.append("[FAILED toString()]");
+    }
+  }
+
+  private static void appendArray(StringBuilder out, Object[] array, Map<Object[], Object> seen) {
+    if (seen.put(array, array) != null) {
+      out.append("[...]");
+      return;
+    }
+    out.append('[');
+    for (int i = 0; i < array.length; ++i) {
+      if (i != 0) {
+        out.append(", ");
+      }
+      appendArgument(out, array[i], seen);
+    }
+    out.append(']');
+    seen.remove(array);
+  }
+}
@@ -0,0 +1,115 @@
+package com.palisand.log.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import com.palisand.bones.log.Appender;
+import com.palisand.bones.log.AsyncAppender;
+import com.palisand.bones.log.Level;
+import com.palisand.bones.log.Logger;
+import com.palisand.bones.log.Message;
+
+class AsyncAppenderTest {
+
+  static class CollectingAppender extends Appender {
+    final ConcurrentLinkedQueue<String> messages = new ConcurrentLinkedQueue<>();
+    volatile CountDownLatch gate = new CountDownLatch(0);
+
+    @Override
+    public void log(Message msg) {
+      try {
+        gate.await();
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+      messages.add(msg.getMessage());
+    }
+  }
+
+  private Logger init(AsyncAppender appender) {
+    Logger config = Logger.getRootLogger();
+    config.clear();
+    config.setLevel(Level.ALL);
+    config.getAppenders().add(appender);
+    return Logger.getLogger(AsyncAppenderTest.class);
+  }
+
+  @Test
+  void testAllMessagesDeliveredOnClose() throws InterruptedException {
+    CollectingAppender target = new CollectingAppender();
+    AsyncAppender async = new AsyncAppender(target);
+    async.setBufferSize(64);
+    Logger log = init(async);
+    int threads = 8;
+    int count = 1000;
+    List<Thread> writers = new ArrayList<>();
+    for (int t = 0; t < threads; ++t) {
+      Logger writerLog = Logger.getLogger(log.getName() + ".t" + t);
+      writers.add(new Thread(() -> {
+        for (int i = 0; i < count; ++i) {
+          writerLog.log("message " + i).info();
+        }
+      }));
+    }
+    writers.forEach(Thread::start);
+    for (Thread writer : writers) {
+      writer.join();
+    }
+    Logger.getRootLogger().clear();
+    assertEquals(threads * count, target.messages.size());
+    assertEquals(0, async.getDroppedCount());
+  }
+
+  @Test
+  void testDropBelowLevel() {
+    CollectingAppender target = new CollectingAppender();
+    target.gate = new CountDownLatch(1);
+    AsyncAppender async = new AsyncAppender(target);
+    async.setBufferSize(4);
+    async.setOverflow(AsyncAppender.Overflow.DROP_BELOW_LEVEL);
+    Logger log = init(async);
+    for (int i = 0; i < 20; ++i) {
+      log.log("debug " + i).debug();
+    }
+    assertTrue(async.getDroppedCount() >= 20 - 4 - 1);
+    target.gate.countDown();
+    Logger.getRootLogger().clear();
+    assertEquals(20, target.messages.size() + async.getDroppedCount());
+  }
+
+  @Test
+  void testDiscardOldest() {
+    CollectingAppender target = new CollectingAppender();
+    target.gate = new CountDownLatch(1);
+    AsyncAppender async = new AsyncAppender(target);
+    async.setBufferSize(4);
+    async.setOverflow(AsyncAppender.Overflow.DISCARD_OLDEST);
+    Logger log = init(async);
+    for (int i = 0; i < 20; ++i) {
+      log.log("info " + i).info();
+    }
+    target.gate.countDown();
+    Logger.getRootLogger().clear();
+    assertEquals(20, target.messages.size() + async.getDiscardedCount());
+    assertTrue(target.messages.contains("info 19"));
+  }
+
+  @Test
+  void testArgumentsFormattedWhenLogged() {
+    CollectingAppender target = new CollectingAppender();
+    target.gate = new CountDownLatch(1);
+    init(new AsyncAppender(target));
+    StringBuilder state = new StringBuilder("before");
+    LoggerFactory.getLogger("async.slf4j").info("state {}", state);
+    state.replace(0, state.length(), "after");
+    target.gate.countDown();
+    Logger.getRootLogger().clear();
+    assertEquals(List.of("state before"), List.copyOf(target.messages));
+  }
+
+}
@@ -0,0 +1,183 @@
+package com.palisand.log.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Properties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.LoggerFactory;
+import com.palisand.bones.log.Appender;
+import com.palisand.bones.log.BinaryFileAppender;
+import com.palisand.bones.log.BinaryLogDecoder;
+import com.palisand.bones.log.FileAppender;
+import com.palisand.bones.log.Level;
+import com.palisand.bones.log.LogContext;
+import com.palisand.bones.log.Logger;
+
+class BinaryFileAppenderTest {
+  private static final String FORMAT =
+      "${date} ${time} ${level} [${location}] ${message} {${context}}";
+
+  @TempDir
+  Path dir;
+
+  @AfterEach
+  void clear() {
+    LogContext.clear();
+    Logger.getRootLogger().clear();
+  }
+
+  private BinaryFileAppender init(Path file, int maxDictionarySize) throws IOException {
+    Properties properties = new Properties();
+    properties.setProperty("file", file.toString());
+    properties.setProperty("maxDictionarySize", Integer.toString(maxDictionarySize));
+    BinaryFileAppender appender = new BinaryFileAppender();
+    appender.init(properties);
+    return appender;
+  }
+
+  private void logAll() {
+    Logger logger = Logger.getLogger(BinaryFileAppenderTest.class);
+    org.slf4j.Logger slf4j = LoggerFactory.getLogger("binary.slf4j");
+    for (int i = 0; i < 3; ++i) {
+      logger.log("request").with("count", i).with("ratio", 0.5f * i).with("name", "n" + i)
+          .with("ok", i % 2 == 0).with("missing", null).info();
+    }
+    LogContext.put("user", "ü✓");
+    slf4j.warn("values {} {} {} and {}", 42L, 1.5, new int[] {1, 2}, "text");
+    LogContext.clear();
+    slf4j.atError().addKeyValue("code", 7).log("failed {}", "badly",
+        new IllegalStateException("x"));
+    logger.log("text " + System.nanoTime()).with(new IllegalArgumentException("cause")).debug();
+  }
+
+  private List<String> decode(Path file, String layout) throws IOException {
+    RecordingAppender output = new RecordingAppender(layout);
+    try (InputStream in = Files.newInputStream(file)) {
+      BinaryLogDecoder.decode(in, output);
+    }
+    return output.lines;
+  }
+
+  private void testRoundTrip(int maxDictionarySize) throws IOException {
+    Path file = dir.resolve("test.blog");
+    BinaryFileAppender binary = init(file, maxDictionarySize);
+    RecordingAppender text = new RecordingAppender(FORMAT);
+    RecordingAppender json = new RecordingAppender(Appender.JSON_LAYOUT);
+    Logger config = Logger.getRootLogger();
+    config.clear();
+    config.setLevel(Level.ALL);
+    config.getAppenders().add(binary);
+    config.getAppenders().add(text);
+    config.getAppenders().add(json);
+    logAll();
+    config.clear();
+
+    assertEquals(6, text.lines.size());
+    assertEquals(text.lines, decode(file, FORMAT));
+    assertEquals(json.lines, decode(file, Appender.JSON_LAYOUT));
+  }
+
+  @Test
+  void testRoundTrip() throws IOException {
+    testRoundTrip(10_000);
+  }
+
+  @Test
+  void testFullDictionary() throws IOException {
+    testRoundTrip(2);
+  }
+
+  @Test
+  void testSmallerThanText() throws IOException {
+    Path file = dir.resolve("size.blog");
+    Path textFile = dir.resolve("size.log");
+    Properties properties = new Properties();
+    properties.setProperty("file", textFile.toString());
+    properties.setProperty("format", FORMAT);
+    FileAppender text = new FileAppender();
+    text.init(properties);
+    Logger config = Logger.getRootLogger();
+    config.clear();
+    config.setLevel(Level.INFO);
+    config.getAppenders().add(init(file, 10_000));
+    config.getAppenders().add(text);
+    Logger logger = Logger.getLogger(BinaryFileAppenderTest.class);
+    for (int i = 0; i < 1000; ++i) {
+      logger.log("request handled").with("status", 200).with("duration", i).info();
+    }
+    config.clear();
+    assertTrue(Files.size(file) * 4 < Files.size(textFile));
+  }
+
+  @Test
+  void testAppendToExistingFile() throws IOException {
+    Path file = dir.resolve("append.blog");
+    Logger config = Logger.getRootLogger();
+    Logger logger = Logger.getLogger("binary.append");
+    for (int run = 0; run < 2; ++run) {
+      config.clear();
+      config.setLevel(Level.INFO);
+      config.getAppenders().add(init(file, 10_000));
+      logger.log("run").with("number", run).info();
+    }
+    config.clear();
+    List<String> lines = decode(file, "${message}");
+    assertEquals(List.of("run number: 0", "run number: 1"), lines);
+  }
+
+  @Test
+  void testAppendAfterPartialRecord() throws IOException {
+    Path file = dir.resolve("partial.blog");
+    Logger config = Logger.getRootLogger();
+    Logger logger = Logger.getLogger("binary.partial");
+    for (int run = 0; run < 2; ++run) {
+      config.clear();
+      config.setLevel(Level.INFO);
+      config.getAppenders().add(init(file, 10_000));
+      logger.log("run").with("number", run).info();
+      config.clear();
+      // the application stopped while writing a record of 100 bytes
+      Files.write(file, new byte[] {100, 3, 0}, StandardOpenOption.APPEND);
+    }
+    assertEquals(List.of("run number: 0", "run number: 1"), decode(file, "${message}"));
+  }
+
+  @Test
+  void testUnknownLevel() throws IOException {
+    Path file = dir.resolve("level.blog");
+    Files.write(file, new byte[] {'B', 'L', 'O', 'G', 1, 4, 3, 0, 99, 0});
+    IOException ex = assertThrows(IOException.class, () -> decode(file, "${message}"));
+    assertEquals("Unknown level 99", ex.getMessage());
+  }
+
+  @Test
+  void testFailingMessage() throws IOException {
+    Path file = dir.resolve("failing.blog");
+    BinaryFileAppender binary = init(file, 10_000);
+    Logger config = Logger.getRootLogger();
+    config.clear();
+    config.setLevel(Level.INFO);
+    config.getAppenders().add(binary);
+    Logger logger = Logger.getLogger("binary.failing");
+    Object failing = new Object() {
+      @Override
+      public String toString() {
+        throw new IllegalStateException("expected failure of toString");
+      }
+    };
+    // the logger name and the text are new to the dictionary when the field fails
+    logger.log("not written").with("value", failing).info();
+    logger.log("written").info();
+    config.clear();
+    assertEquals(List.of("written"), decode(file, "${message}"));
+  }
+}
@@ -0,0 +1,187 @@
+package com.palisand.log.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import com.palisand.bones.log.FileAppender;
+import com.palisand.bones.log.Level;
+import com.palisand.bones.log.Logger;
+import com.palisand.bones.log.PrintStreamAppender;
+
+class BufferedFileAppenderTest {
+
+  @TempDir
+  Path dir;
+
+  private FileAppender init(Properties properties) throws IOException {
+    FileAppender appender = new FileAppender();
+    properties.setProperty("format", "${level} ${message}");
+    appender.init(properties);
+    Logger config = Logger.getRootLogger();
+    config.clear();
+    config.setLevel(Level.ALL);
+    config.getAppenders().add(appender);
+    return appender;
+  }
+
+  @Test
+  @SuppressWarnings("deprecation")
+  void testDeprecatedOutputStream() throws IOException {
+    File file = dir.resolve("stream.log").toFile();
+    Properties properties = new Properties();
+    properties.setProperty("file", file.getPath());
+    FileAppender appender = init(properties);
+    assertTrue(appender instanceof PrintStreamAppender);
+    Logger log = Logger.getLogger(BufferedFileAppenderTest.class);
+    log.log("logged").info();
+    appender.getOutputStream().println("printed");
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    appender.setOutputStream(new PrintStream(bytes, true, StandardCharsets.UTF_8));
+    log.log("redirected").info();
+    appender.setOutputStream(null);
+    log.log("file again").info();
+    Logger.getRootLogger().clear();
+    assertEquals(List.of(" INFO logged", "printed", " INFO file again"),
+        Files.readAllLines(file.toPath()));
+    assertEquals(" INFO redirected" + System.lineSeparator(),
+        bytes.toString(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void testFlushPolicy() throws IOException {
+    File file = dir.resolve("buffered.log").toFile();
+    Properties properties = new Properties();
+    properties.setProperty("file", file.getPath());
+    properties.setProperty("immediateFlush", "false");
+    properties.setProperty("flushInterval", "0");
+    init(properties);
+    Logger log = Logger.getLogger(BufferedFileAppenderTest.class);
+    log.log("buffered é").info();
+    assertEquals(0, file.length());
+    log.log("flushed").warn();
+    assertEquals(List.of(" INFO buffered é", " WARN flushed"), Files.readAllLines(file.toPath()));
+    log.log("on close").debug();
+    Logger.getRootLogger().clear();
+    assertEquals(3, Files.readAllLines(file.toPath()).size());
+  }
+
+  @Test
+  void testSizeRotationWithRetention() throws IOException, InterruptedException {
+    File file = dir.resolve("rotating.log").toFile();
+    Properties properties = new Properties();
+    properties.setProperty("file", file.getPath());
+    properties.setProperty("maxSize", "1KB");
+    properties.setProperty("compress", "true");
+    properties.setProperty("maxHistory", "3");
+    // files of others with the same prefix are not rotated files
+    Set<String> others = Set.of("rotating.log", "rotating.log.json", "rotating.log.lock");
+    Files.writeString(dir.resolve("rotating.log.json"), "{}");
+    Files.writeString(dir.resolve("rotating.log.lock"), "");
+    init(properties);
+    Logger log = Logger.getLogger(BufferedFileAppenderTest.class);
+    for (int i = 0; i < 200; ++i) {
+      log.log("message number " + i).info();
+    }
+    Logger.getRootLogger().clear();
+    assertTrue(file.length() < 1024);
+    String[] rotated = {};
+    for (int i = 0; i < 100; ++i) {
+      rotated = dir.toFile().list((parent, name) -> !others.contains(name));
+      if (rotated.length == 3 && Arrays.stream(rotated).allMatch(name -> name.endsWith(".gz"))) {
+        break;
+      }
+      Thread.sleep(50);
+    }
+    assertEquals(3, rotated.length, Arrays.toString(rotated));
+    assertTrue(Files.exists(dir.resolve("rotating.log.json")));
+    assertTrue(Files.exists(dir.resolve("rotating.log.lock")));
+    // the index keeps increasing after old files are deleted, so it orders the rotated files
+    Arrays.sort(rotated, Comparator.comparingInt(BufferedFileAppenderTest::indexOf));
+    int previous = -1;
+    for (String name : rotated) {
+      assertTrue(name.matches("rotating\\.log\\.\\d+\\.gz"), name);
+      try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+          new GZIPInputStream(new FileInputStream(new File(dir.toFile(), name)))))) {
+        String first = reader.readLine();
+        assertTrue(first.startsWith(" INFO message number "), first);
+        int number = Integer.parseInt(first.substring(first.lastIndexOf(' ') + 1));
+        assertTrue(number > previous, Arrays.toString(rotated));
+        previous = number;
+      }
+    }
+  }
+
+  private static int indexOf(String rotated) {
+    return Integer.parseInt(rotated.split("\\.")[2]);
+  }
+
+  @Test
+  void testRotationUnderLoad() throws IOException, InterruptedException {
+    File file = dir.resolve("stress.log").toFile();
+    Properties properties = new Properties();
+    properties.setProperty("file", file.getPath());
+    properties.setProperty("maxSize", "16KB");
+    properties.setProperty("immediateFlush", "false");
+    properties.setProperty("flushInterval", "1");
+    init(properties);
+    int threads = 16;
+    int count = 2000;
+    List<Thread> writers = new ArrayList<>();
+    for (int t = 0; t < threads; ++t) {
+      Logger log = Logger.getLogger("stress.t" + t);
+      writers.add(new Thread(() -> {
+        for (int i = 0; i < count; ++i) {
+          log.log(log.getName() + " " + i).info();
+        }
+      }));
+    }
+    writers.forEach(Thread::start);
+    for (Thread writer : writers) {
+      writer.join();
+    }
+    Logger.getRootLogger().clear();
+    File[] files = dir.toFile().listFiles((parent, name) -> name.startsWith("stress.log"));
+    assertTrue(files.length > 10, "expected many rotations, found " + files.length + " files");
+    Set<String> lines = new HashSet<>();
+    int total = 0;
+    for (File logFile : files) {
+      for (String line : Files.readAllLines(logFile.toPath())) {
+        lines.add(line);
+        ++total;
+      }
+    }
+    assertEquals(threads * count, total);
+    assertEquals(threads * count, lines.size());
+  }
+
+  @Test
+  void testImmediateFlush() throws IOException {
+    File file = dir.resolve("immediate.log").toFile();
+    Properties properties = new Properties();
+    properties.setProperty("file", file.getPath());
+    init(properties);
+    Logger.getLogger(BufferedFileAppenderTest.class).log("written").debug();
+    assertEquals(List.of("DEBUG written"), Files.readAllLines(file.toPath()));
+    Logger.getRootLogger().clear();
+  }
+
+}
@@ -0,0 +1,93 @@
+package com.palisand.log.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import com.palisand.bones.log.Appender;
+import com.palisand.bones.log.Level;
+import com.palisand.bones.log.Logger;
+import com.palisand.bones.log.Message;
+
+class ConfigSnapshotTest {
+
+  @AfterEach
+  void clear() {
+    Logger.getRootLogger().clear();
+  }
+
+  @Test
+  void testRebuildAndReparent() {
+    Logger config = Logger.getRootLogger();
+    config.clear();
+    config.setLevel(Level.INFO);
+    RecordingAppender root = new RecordingAppender("${level} ${message}");
+    config.getAppenders().add(root);
+    Logger child = Logger.getLogger("snapshot.parent.child");
+    assertFalse(child.isEnabled(Level.DEBUG));
+
+    // a parent created after its child takes the child over
+    Logger parent = Logger.getLogger("snapshot.parent");
+    assertEquals(parent, child.getParent());
+    RecordingAppender own = new RecordingAppender("${message}");
+    parent.getAppenders().add(own);
+    parent.setLevel(Level.DEBUG);
+    assertTrue(child.isEnabled(Level.DEBUG));
+    child.log("child").debug();
+
+    // a logger higher up does not take the child from its closer parent
+    Logger.getLogger("snapshot");
+    assertEquals(parent, child.getParent());
+    parent.getAppenders().remove(own);
+    parent.setLevel(null);
+    child.log("after").debug();
+    child.log("info").info();
+    assertEquals(List.of("child"), own.lines);
+    assertEquals(List.of("DEBUG child", " INFO info"), root.lines);
+  }
+
+  @Test
+  void testConcurrentChanges() throws InterruptedException {
+    Logger config = Logger.getRootLogger();
+    config.clear();
+    config.setLevel(Level.INFO);
+    Logger log = Logger.getLogger("snapshot.concurrent");
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 4; ++t) {
+      Logger changed = Logger.getLogger("snapshot.concurrent.t" + t);
+      Thread thread = new Thread(() -> {
+        try {
+          for (int i = 0; i < 500; ++i) {
+            Appender appender = new RecordingAppender("${message}");
+            changed.getAppenders().add(appender);
+            changed.setLevel(i % 2 == 0 ? Level.DEBUG : Level.INFO);
+            changed.getAppenders().remove(appender);
+          }
+        } catch (Throwable ex) {
+          failure.set(ex);
+        }
+      });
+      threads.add(thread);
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertNull(failure.get());
+    RecordingAppender last = new RecordingAppender("${message}");
+    log.getAppenders().add(last);
+    for (int t = 0; t < 4; ++t) {
+      Logger.getLogger("snapshot.concurrent.t" + t).log("message").info();
+    }
+    assertEquals(4, last.messages.size());
+    for (Message msg : last.messages) {
+      assertEquals("message", msg.getMessage());
+    }
+  }
+}
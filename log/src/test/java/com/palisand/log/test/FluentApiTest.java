@@ -0,0 +1,64 @@
+package com.palisand.log.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MarkerFactory;
+import org.slf4j.spi.NOPLoggingEventBuilder;
+import com.palisand.bones.log.Level;
+import com.palisand.bones.log.Logger;
+import com.palisand.bones.log.Message;
+
+class FluentApiTest {
+
+  @AfterEach
+  void clear() {
+    Logger.getRootLogger().clear();
+  }
+
+  @Test
+  void testKeyValues() {
+    List<Message> messages = new ArrayList<>();
+    Logger config = Logger.getRootLogger();
+    config.clear();
+    config.setLevel(Level.INFO);
+    config.getAppenders().add(new TestAppender(messages::add, messages::add, messages::add));
+    org.slf4j.Logger logger = LoggerFactory.getLogger("fluent");
+    IllegalStateException ex = new IllegalStateException("test");
+
+    logger.atInfo().addKeyValue("user", "u1").addKeyValue("count", () -> 3)
+        .addMarker(MarkerFactory.getMarker("A")).addMarker(MarkerFactory.getMarker("B"))
+        .setCause(ex).log("done {} of {}", 1, 2);
+    logger.atWarn().addArgument("x").addArgument(() -> 5).setMessage("{} and {}").log();
+    logger.atLevel(org.slf4j.event.Level.ERROR).log("failed {}", "y", ex);
+
+    assertEquals(3, messages.size());
+    Message first = messages.get(0);
+    assertEquals("done 1 of 2", first.getMessage());
+    assertEquals(Level.INFO, first.getLevel());
+    assertEquals(Map.of("user", "u1", "count", 3, "marker", "A,B"), first.getFields());
+    assertSame(ex, first.getThrowable());
+    assertEquals("x and 5", messages.get(1).getMessage());
+    assertNull(messages.get(1).getFields());
+    assertEquals("failed y", messages.get(2).getMessage());
+    assertSame(ex, messages.get(2).getThrowable());
+  }
+
+  @Test
+  void testDisabled() {
+    Logger config = Logger.getRootLogger();
+    config.clear();
+    config.setLevel(Level.INFO);
+    config.getAppenders().add(new TestAppender());
+    org.slf4j.Logger logger = LoggerFactory.getLogger("fluent");
+    assertSame(NOPLoggingEventBuilder.singleton(), logger.atDebug());
+    assertSame(NOPLoggingEventBuilder.singleton(), logger.atLevel(org.slf4j.event.Level.TRACE));
+    logger.atDebug().addKeyValue("key", "value").log("not logged");
+  }
+}
@@ -0,0 +1,63 @@
+package com.palisand.log.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+import com.palisand.bones.log.JsonAppender;
+import com.palisand.bones.log.Level;
+import com.palisand.bones.log.LogMetrics;
+import com.palisand.bones.log.LogMetrics.AppenderStats;
+import com.palisand.bones.log.Logger;
+
+class JsonAppenderTest {
+
+  @Test
+  void testJsonLine() {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    JsonAppender appender = new JsonAppender(new PrintStream(bytes));
+    appender.setIncludeLocation(false);
+    Logger config = Logger.getRootLogger();
+    config.clear();
+    config.setLevel(Level.ALL);
+    config.getAppenders().add(appender);
+    Logger.getLogger("json").log("say \"h\u00e9llo\"\n\u263a \ud83d\ude00").with("count", 3)
+        .with("ratio", 0.5).with("ok", true).with("name", "a\tb").with("none", null)
+        .with("level", "field").warn();
+    config.clear();
+    String line = bytes.toString(StandardCharsets.UTF_8);
+    assertTrue(line.endsWith("}" + System.lineSeparator()));
+    String json = line.substring(line.indexOf("\"level\""),
+        line.length() - 1 - System.lineSeparator().length());
+    assertEquals("\"level\":\"WARN\",\"logger\":\"json\","
+        + "\"message\":\"say \\\"h\u00e9llo\\\"\\n\u263a \ud83d\ude00\",\"count\":3,"
+        + "\"field.level\":\"field\",\"name\":\"a\\tb\",\"none\":null,\"ok\":true,"
+        + "\"ratio\":0.5", json);
+    assertTrue(line
+        .matches("\\{\"timestamp\":\"\\d{4}-\\d\\d-\\d\\dT\\d\\d:\\d\\d:\\d\\d\\.\\d{3}Z\".*\\R"));
+  }
+
+  @Test
+  void testFailureCounted() {
+    JsonAppender appender = new JsonAppender(new PrintStream(new OutputStream() {
+      @Override
+      public void write(int b) throws IOException {
+        throw new IOException("expected failure of test stream");
+      }
+    }));
+    Logger config = Logger.getRootLogger();
+    config.clear();
+    config.setLevel(Level.ALL);
+    config.getAppenders().add(appender);
+    Logger.getLogger("json.failing").log("lost").info();
+    Logger.getLogger("json.failing").log("lost again").info();
+    AppenderStats stats = LogMetrics.snapshot().getAppenders().get(0);
+    config.clear();
+    assertEquals(2, stats.getFailures());
+  }
+
+}
@@ -0,0 +1,60 @@
+package com.palisand.log.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.lang.management.ManagementFactory;
+import org.junit.jupiter.api.Test;
+import com.palisand.bones.log.Level;
+import com.palisand.bones.log.Logger;
+import com.palisand.bones.log.Message;
+
+class LevelFastPathTest {
+
+  @Test
+  void testDisabledLevelReturnsSharedMessage() {
+    Logger config = Logger.getRootLogger();
+    config.clear();
+    config.setLevel(Level.INFO);
+    Logger log = Logger.getLogger(LevelFastPathTest.class);
+    Message disabled = log.debug("first");
+    assertSame(disabled, log.trace("second").with("field", "value"));
+    assertEquals("", disabled.getMessage());
+    assertEquals("", disabled.getTemplate());
+  }
+
+  @Test
+  void testEnabledLevel() {
+    Logger config = Logger.getRootLogger();
+    config.clear();
+    config.setLevel(Level.INFO);
+    config.getAppenders().add(new TestAppender(msg -> {
+      assertEquals("enabled", msg.getMessage());
+      assertEquals(Level.WARN, msg.getLevel());
+      assertEquals("value", msg.getFields().get("field"));
+    }));
+    Logger.getLogger(LevelFastPathTest.class).warn("enabled").with("field", "value").log();
+  }
+
+  @Test
+  void testDisabledLevelDoesNotAllocate() {
+    com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    Logger config = Logger.getRootLogger();
+    config.clear();
+    config.setLevel(Level.INFO);
+    Logger log = Logger.getLogger(LevelFastPathTest.class);
+    Exception ex = new Exception();
+    for (int i = 0; i < 10_000; ++i) {
+      log.debug("warm up").with("field", "value").with(ex).log();
+    }
+    long before = threads.getCurrentThreadAllocatedBytes();
+    for (int i = 0; i < 1_000_000; ++i) {
+      log.debug("disabled").with("field", "value").with(ex).log();
+      log.trace("disabled").log();
+    }
+    long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+    assertTrue(allocated < 10_000, "disabled log statements allocated " + allocated + " bytes");
+  }
+
+}
@@ -0,0 +1,109 @@
+package com.palisand.log.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import com.palisand.bones.log.Level;
+import com.palisand.bones.log.LevelRule;
+import com.palisand.bones.log.LogContext;
+import com.palisand.bones.log.Logger;
+
+class LevelRuleTest {
+
+  @AfterEach
+  void clear() {
+    LogContext.clear();
+    Logger.getRootLogger().clear();
+  }
+
+  private RecordingAppender init() {
+    RecordingAppender appender = new RecordingAppender("${level} ${message}");
+    Logger config = Logger.getRootLogger();
+    config.clear();
+    config.setLevel(Level.INFO);
+    config.getAppenders().add(appender);
+    return appender;
+  }
+
+  @Test
+  void testContextRules() {
+    RecordingAppender appender = init();
+    Logger rules = Logger.getLogger("rules");
+    Logger log = Logger.getLogger("rules.service");
+    Logger other = Logger.getLogger("other");
+    assertFalse(rules.isEnabled(Level.DEBUG));
+    rules.getLevelRules().add(new LevelRule(Level.DEBUG, "tenant", "acme", "beta"));
+    assertFalse(log.isEnabled(Level.DEBUG));
+    log.debug("field").with("tenant", "acme").log();
+    log.log("field when logged").with("tenant", "acme").debug();
+    LogContext.put("tenant", "acme");
+    assertTrue(log.isEnabled(Level.DEBUG));
+    assertFalse(log.isEnabled(Level.TRACE));
+    assertFalse(other.isEnabled(Level.DEBUG));
+    log.debug("context").log();
+    log.log("context when logged").debug();
+    log.trace("trace").log();
+    other.debug("other logger").log();
+    LogContext.put("tenant", "other");
+    assertFalse(log.isEnabled(Level.DEBUG));
+    log.debug("other tenant").log();
+    LogContext.put("tenant", "beta");
+    assertTrue(log.isEnabled(Level.DEBUG));
+    rules.getLevelRules().clear();
+    assertFalse(log.isEnabled(Level.DEBUG));
+    LogContext.clear();
+    log.info("info").log();
+    assertEquals(List.of("DEBUG context", "DEBUG context when logged", " INFO info"),
+        appender.lines);
+  }
+
+  @Test
+  void testFieldRules() {
+    RecordingAppender appender = init();
+    Logger log = Logger.getLogger("rules.service");
+    Logger.getLogger("rules").getLevelRules()
+        .add(new LevelRule(Level.DEBUG, Map.of("tenant", List.of("acme")), true));
+    // fields are not known before the message is logged
+    assertFalse(log.isEnabled(Level.DEBUG));
+    log.debug("disabled").with("tenant", "acme").log();
+    log.log("field").with("tenant", "acme").debug();
+    log.log("other tenant").with("tenant", "other").debug();
+    log.log("request").with("tenant", "acme").with("request", 17).trace();
+    LogContext.put("tenant", "acme");
+    assertFalse(log.isEnabled(Level.DEBUG));
+    log.log("context").debug();
+    log.log("field first").with("tenant", "other").debug();
+    assertEquals(List.of("DEBUG field tenant: acme", "DEBUG context"), appender.lines);
+  }
+
+  @Test
+  void testProperties() {
+    Properties properties = new Properties();
+    properties.setProperty("bones.log.level", "INFO");
+    properties.setProperty("bones.log.rules.levelRules", "acme,request");
+    properties.setProperty("bones.log.rules.acme.level", "DEBUG");
+    properties.setProperty("bones.log.rules.acme.match.tenant", "acme, beta");
+    properties.setProperty("bones.log.rules.request.level", "TRACE");
+    properties.setProperty("bones.log.rules.request.match.tenant", "acme");
+    properties.setProperty("bones.log.rules.request.match.request", "17");
+    properties.setProperty("bones.log.rules.request.matchFields", "true");
+    Logger config = Logger.getRootLogger();
+    config.clear();
+    Logger.initFromProperties(properties);
+    RecordingAppender appender = new RecordingAppender("${level} ${message}");
+    config.getAppenders().add(appender);
+    Logger log = Logger.getLogger("rules.service");
+    assertEquals(2, Logger.getLogger("rules").getLevelRules().size());
+    log.log("trace").with("tenant", "acme").with("request", 17).trace();
+    log.log("other request").with("tenant", "acme").with("request", 18).trace();
+    log.debug("no context").log();
+    LogContext.put("tenant", "beta");
+    log.debug("debug").log();
+    assertEquals(List.of("TRACE trace request: 17 tenant: acme", "DEBUG debug"), appender.lines);
+  }
+}
@@ -0,0 +1,84 @@
+package com.palisand.log.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+import com.palisand.bones.log.JsonAppender;
+import com.palisand.bones.log.Level;
+import com.palisand.bones.log.LogContext;
+import com.palisand.bones.log.Logger;
+import com.palisand.bones.log.Message;
+import com.palisand.bones.log.slf4j.BonesLogger;
+
+class LogContextTest {
+
+  @AfterEach
+  void clear() {
+    MDC.clear();
+    Logger.getRootLogger().clear();
+  }
+
+  @Test
+  void testMdcAndMarker() {
+    List<Message> messages = new ArrayList<>();
+    List<String> lines = new ArrayList<>();
+    TestAppender appender = new TestAppender(messages::add, messages::add) {
+      @Override
+      public void log(Message msg) {
+        lines.add(formatMessage(msg));
+        super.log(msg);
+      }
+    };
+    appender.setFormat("[${context.request}] ${message} {${context}} ${context.none}.");
+    Logger config = Logger.getRootLogger();
+    config.clear();
+    config.setLevel(Level.INFO);
+    config.getAppenders().add(appender);
+    org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger("context");
+    Marker audit = MarkerFactory.getMarker("AUDIT");
+    MDC.put("request", "r1");
+    MDC.put("user", "u1");
+    Map<String, String> before = LogContext.getMap();
+    logger.info(audit, "first");
+    MDC.remove("user");
+    logger.info("second");
+    assertTrue(logger.isInfoEnabled(audit));
+    assertEquals(false, logger.isDebugEnabled(audit));
+
+    assertSame(before, messages.get(0).getContext());
+    assertEquals(Map.of("request", "r1", "user", "u1"), messages.get(0).getContext());
+    assertEquals("AUDIT", messages.get(0).getFields().get(BonesLogger.MARKER_FIELD));
+    assertEquals(Map.of("request", "r1"), messages.get(1).getContext());
+    assertEquals("[r1] first marker: AUDIT {request=r1, user=u1} .", lines.get(0));
+    assertEquals("[r1] second {request=r1} .", lines.get(1));
+  }
+
+  @Test
+  void testJsonContext() {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    JsonAppender appender = new JsonAppender(new PrintStream(bytes));
+    appender.setIncludeLocation(false);
+    Logger config = Logger.getRootLogger();
+    config.clear();
+    config.setLevel(Level.ALL);
+    config.getAppenders().add(appender);
+    LogContext.put("request", "r\"2");
+    Logger.getLogger("json").log("message").info();
+    LogContext.clear();
+    Logger.getLogger("json").log("message").info();
+    String[] lines = bytes.toString(StandardCharsets.UTF_8).split("\\R");
+    assertTrue(lines[0].endsWith("\"message\":\"message\",\"context\":{\"request\":\"r\\\"2\"}}"));
+    assertTrue(lines[1].endsWith("\"message\":\"message\"}"));
+  }
+}
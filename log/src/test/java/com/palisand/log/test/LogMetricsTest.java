@@ -0,0 +1,97 @@
+package com.palisand.log.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import com.palisand.bones.log.Appender;
+import com.palisand.bones.log.AsyncAppender;
+import com.palisand.bones.log.JsonAppender;
+import com.palisand.bones.log.Level;
+import com.palisand.bones.log.LogMetrics;
+import com.palisand.bones.log.LogMetrics.AppenderStats;
+import com.palisand.bones.log.LogMetrics.LoggerStats;
+import com.palisand.bones.log.Logger;
+import com.palisand.bones.log.Message;
+import com.palisand.bones.log.RateLimitFilter;
+
+class LogMetricsTest {
+
+  static class FailingAppender extends Appender {
+    @Override
+    public void log(Message msg) {
+      if (msg.getLevel() == Level.ERROR) {
+        throw new IllegalStateException("expected failure of test appender");
+      }
+    }
+  }
+
+  @AfterEach
+  void clear() {
+    Logger.getRootLogger().clear();
+  }
+
+  @Test
+  void testSnapshot() throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    JsonAppender json = new JsonAppender(new PrintStream(bytes));
+    json.setIncludeLocation(false);
+    Logger config = Logger.getRootLogger();
+    config.clear();
+    config.setLevel(Level.INFO);
+    config.getAppenders().add(json);
+    AsyncAppender async = new AsyncAppender(new FailingAppender());
+    config.getAppenders().add(async);
+    RateLimitFilter filter = new RateLimitFilter();
+    filter.setBurst(2);
+    filter.setRate(0.001);
+    Logger limited = Logger.getLogger("metrics.limited");
+    limited.getFilters().add(filter);
+
+    for (int i = 0; i < 5; ++i) {
+      limited.log("limited").info();
+    }
+    Logger.getLogger("metrics.plain").log("failure é").error();
+    Logger.getLogger("metrics.plain").log("not enabled").debug();
+    // drain the queue
+    async.close();
+
+    LogMetrics metrics = LogMetrics.snapshot();
+    Map<String, LoggerStats> loggers = metrics.getLoggers().stream()
+        .collect(Collectors.toMap(LoggerStats::getName, Function.identity()));
+    assertEquals(2, loggers.get("metrics.limited").getAccepted());
+    assertEquals(3, loggers.get("metrics.limited").getFiltered());
+    assertEquals(1, loggers.get("metrics.plain").getAccepted());
+
+    Map<String, AppenderStats> appenders = metrics.getAppenders().stream()
+        .collect(Collectors.toMap(AppenderStats::getName, Function.identity()));
+    AppenderStats jsonStats = appenders.get("root:JsonAppender#0");
+    assertEquals(3, jsonStats.getMessages());
+    assertEquals(bytes.size(), jsonStats.getBytes());
+    assertTrue(jsonStats.getLatencyMax() > 0);
+    assertTrue(jsonStats.getLatency99() >= jsonStats.getLatencyMedian());
+    AppenderStats asyncStats = appenders.get("root:AsyncAppender#1");
+    assertEquals(3, asyncStats.getMessages());
+    assertEquals(0, asyncStats.getQueueSize());
+    AppenderStats failing = appenders.get("root:AsyncAppender#1>FailingAppender");
+    assertEquals(2, failing.getMessages());
+    assertEquals(1, failing.getFailures());
+
+    LogMetrics.registerMBeans();
+    ObjectName name = new ObjectName(LogMetrics.OBJECT_NAME);
+    assertEquals(1L,
+        ManagementFactory.getPlatformMBeanServer().getAttribute(name, "FailureCount"));
+    CompositeData[] stats =
+        (CompositeData[]) ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Appenders");
+    assertEquals(3, stats.length);
+    assertEquals((long) bytes.size(), stats[0].get("bytes"));
+  }
+}
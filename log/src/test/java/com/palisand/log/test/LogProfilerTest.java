@@ -0,0 +1,91 @@
+package com.palisand.log.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Properties;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import com.palisand.bones.log.JsonAppender;
+import com.palisand.bones.log.Level;
+import com.palisand.bones.log.LogMetrics;
+import com.palisand.bones.log.LogProfiler;
+import com.palisand.bones.log.LogProfiler.LocationVolume;
+import com.palisand.bones.log.LogProfiler.LoggerVolume;
+import com.palisand.bones.log.Logger;
+
+class LogProfilerTest {
+
+  @AfterEach
+  void clear() {
+    LogProfiler.setEnabled(false);
+    LogProfiler.reset();
+    Logger.getRootLogger().clear();
+  }
+
+  @Test
+  void testTopLocations() throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    JsonAppender json = new JsonAppender(new PrintStream(bytes));
+    json.setIncludeLocation(false);
+    Logger config = Logger.getRootLogger();
+    config.clear();
+    config.setLevel(Level.INFO);
+    config.getAppenders().add(json);
+    LogProfiler.reset();
+    LogProfiler.setEnabled(true);
+
+    Logger large = Logger.getLogger("profile.large");
+    Logger small = Logger.getLogger("profile.small");
+    for (int i = 0; i < 3; ++i) {
+      large.log("a large message " + "x".repeat(1000)).info();
+    }
+    for (int i = 0; i < 10; ++i) {
+      small.log("small").info();
+      small.log("not enabled").debug();
+    }
+    LogProfiler.setEnabled(false);
+    small.log("not profiled").info();
+
+    List<LocationVolume> locations = LogProfiler.getTopLocations(10);
+    assertEquals(2, locations.size());
+    assertEquals("profile.large", locations.get(0).getLogger());
+    assertTrue(locations.get(0).getLocation().startsWith(LogProfilerTest.class.getName()));
+    assertEquals(3, locations.get(0).getMessages());
+    assertEquals(10, locations.get(1).getMessages());
+    assertTrue(locations.get(0).getBytes() > locations.get(1).getBytes());
+    List<LoggerVolume> loggers = LogProfiler.getTopLoggers(1);
+    assertEquals(1, loggers.size());
+    assertEquals("profile.large", loggers.get(0).getLogger());
+    long profiled = bytes.toString().lines().filter(line -> !line.contains("not profiled"))
+        .mapToLong(line -> line.length() + System.lineSeparator().length()).sum();
+    assertEquals(profiled, locations.get(0).getBytes() + locations.get(1).getBytes());
+
+    LogMetrics.registerMBeans();
+    CompositeData[] jmx = (CompositeData[]) ManagementFactory.getPlatformMBeanServer()
+        .getAttribute(new ObjectName(LogProfiler.OBJECT_NAME), "TopLocations");
+    assertEquals(2, jmx.length);
+    assertEquals(3L, jmx[0].get("messages"));
+  }
+
+  @Test
+  void testProperties() {
+    Properties properties = new Properties();
+    properties.setProperty("bones.log.profile", "true");
+    properties.setProperty("bones.log.profileTop", "3");
+    Logger.getRootLogger().clear();
+    Logger.initFromProperties(properties);
+    assertTrue(LogProfiler.isEnabled());
+    assertEquals(3, LogProfiler.getTop());
+    assertEquals(0, LogProfiler.getSummaryInterval());
+    Logger.reload(new Properties());
+    assertFalse(LogProfiler.isEnabled());
+    assertEquals(10, LogProfiler.getTop());
+  }
+}
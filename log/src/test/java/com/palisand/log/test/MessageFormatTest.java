@@ -0,0 +1,82 @@
+package com.palisand.log.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import com.palisand.bones.log.Level;
+import com.palisand.bones.log.Logger;
+import com.palisand.bones.log.Message;
+import com.palisand.bones.log.TimestampRenderer;
+
+class MessageFormatTest {
+
+  private static String reference(String format, Message msg) {
+    return String.format(
+        format.replace("${level}", "%5s").replace("${date}", "%s").replace("${time}", "%s")
+            .replace("${location}", "%s").replace("${message}", "%s"),
+        referenceArguments(format, msg));
+  }
+
+  private static Object[] referenceArguments(String format, Message msg) {
+    List<Object> result = new ArrayList<>();
+    int pos = format.indexOf("${");
+    while (pos != -1) {
+      String label = format.substring(pos + 2, format.indexOf('}', pos));
+      result.add(switch (label) {
+        case "level" -> msg.getLevel().name();
+        case "date" -> msg.getDate();
+        case "time" -> msg.getTime();
+        case "location" -> msg.getLocation();
+        default -> msg.getMessageString();
+      });
+      pos = format.indexOf("${", pos + 1);
+    }
+    return result.toArray();
+  }
+
+  @Test
+  void testFormatsMatchStringFormat() {
+    String[] formats = {"${date} ${time} ${level} [${location}] ${message}",
+        "-> ${date}=${time} ${level} ${location}> ${message}", "${time} ${location}: ${message}",
+        "${message}", "[${level}]"};
+    Logger config = Logger.getRootLogger();
+    for (String format : formats) {
+      config.clear();
+      config.setLevel(Level.ALL);
+      RecordingAppender appender = new RecordingAppender(format);
+      config.getAppenders().add(appender);
+      Logger log = Logger.getLogger(MessageFormatTest.class);
+      log.log("plain").info();
+      log.log("fields").with("b", 2).with("a", "one").warn();
+      log.log("exception").with("x", null).with(new IllegalStateException("test")).error();
+      log.log("all").trace();
+      for (int i = 0; i < appender.lines.size(); ++i) {
+        assertEquals(reference(format, appender.messages.get(i)), appender.lines.get(i));
+      }
+    }
+    config.clear();
+  }
+
+  @Test
+  void testTimestampRendering() {
+    Instant start = Instant.parse("2024-02-28T23:59:58.001Z");
+    for (int i = 0; i < 3000; i += 7) {
+      Instant timestamp = start.plusMillis(i);
+      String iso = timestamp.toString();
+      assertEquals(iso.substring(0, 10), TimestampRenderer.DATE.format(timestamp));
+      assertEquals(iso.substring(11, 23), TimestampRenderer.TIME.format(timestamp));
+    }
+    assertEquals("00:00:00.000",
+        TimestampRenderer.TIME.format(Instant.parse("2024-03-01T00:00:00Z")));
+    TimestampRenderer local =
+        new TimestampRenderer("dd/MM/yyyy HH:mm:ss", ZoneId.of("Europe/Amsterdam"));
+    assertEquals("29/02/2024 02:00:00", local.format(Instant.parse("2024-02-29T01:00:00Z")));
+    TimestampRenderer micros = new TimestampRenderer("HH:mm:ss.SSSSSS", ZoneOffset.UTC);
+    assertEquals("10:15:30.123456", micros.format(Instant.parse("2024-03-01T10:15:30.123456Z")));
+  }
+
+}
@@ -0,0 +1,74 @@
+package com.palisand.log.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import com.palisand.bones.log.Level;
+import com.palisand.bones.log.Logger;
+import com.palisand.bones.log.Message;
+import com.palisand.bones.log.slf4j.ParameterizedMessage;
+
+class ParameterizedMessageTest {
+
+  @Test
+  void testFormat() {
+    assertEquals("a 1 b 2", ParameterizedMessage.format("a {} b {}", 1, 2));
+    assertEquals("100% {} done", ParameterizedMessage.format("{}% {} done", 100));
+    assertEquals("a 1", ParameterizedMessage.format("a {}", 1, 2));
+    assertEquals("{}", ParameterizedMessage.format("{}", (Object[]) null));
+    assertEquals("{x} {1}", ParameterizedMessage.format("{x} {{}}", 1));
+    assertNull(ParameterizedMessage.format(null, 1));
+  }
+
+  @Test
+  void testEscape() {
+    assertEquals("set {} to 1", ParameterizedMessage.format("set \\{} to {}", 1));
+    assertEquals("C:\\1", ParameterizedMessage.format("C:\\\\{}", 1));
+  }
+
+  @Test
+  void testArrays() {
+    Object[] nested = {1, new int[] {2, 3}, new String[] {"a", null}};
+    assertEquals("[1, [2, 3], [a, null]]", ParameterizedMessage.format("{}", new Object[] {nested}));
+    Object[] cycle = new Object[2];
+    cycle[0] = "x";
+    cycle[1] = cycle;
+    assertEquals("[x, [...]]", ParameterizedMessage.format("{}", new Object[] {cycle}));
+    assertEquals("[true] [1.5]",
+        ParameterizedMessage.format("{} {}", new boolean[] {true}, new double[] {1.5}));
+    Object failing = new Object() {
+      @Override
+      public String toString() {
+        throw new IllegalStateException();
+      }
+    };
+    assertEquals("[FAILED toString()]", ParameterizedMessage.format("{}", failing));
+  }
+
+  @Test
+  void testSlf4jLogger() {
+    List<Message> messages = new ArrayList<>();
+    Logger config = Logger.getRootLogger();
+    config.clear();
+    config.setLevel(Level.INFO);
+    config.getAppenders().add(new TestAppender(messages::add, messages::add, messages::add));
+    org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger("parameterized");
+    IllegalStateException ex = new IllegalStateException("test");
+    logger.info("one {}", "arg", ex);
+    logger.warn("two {} {}", 1, 2, ex);
+    logger.error("only {}", (Object) ex);
+    logger.debug("disabled {}", "arg");
+    config.clear();
+    assertEquals(3, messages.size());
+    assertEquals("one arg", messages.get(0).getMessage());
+    assertSame(ex, messages.get(0).getThrowable());
+    assertEquals("two 1 2", messages.get(1).getMessage());
+    assertSame(ex, messages.get(1).getThrowable());
+    assertEquals("only {}", messages.get(2).getMessage());
+    assertSame(ex, messages.get(2).getThrowable());
+    assertEquals(Level.ERROR, messages.get(2).getLevel());
+  }
+}
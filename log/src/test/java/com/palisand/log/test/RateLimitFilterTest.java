@@ -0,0 +1,102 @@
+package com.palisand.log.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import com.palisand.bones.log.Appender;
+import com.palisand.bones.log.Level;
+import com.palisand.bones.log.Logger;
+import com.palisand.bones.log.Message;
+import com.palisand.bones.log.RateLimitFilter;
+
+class RateLimitFilterTest {
+  private static final String FILTER = RateLimitFilter.class.getName();
+
+  static class CollectingAppender extends Appender {
+    final ConcurrentLinkedQueue<Message> messages = new ConcurrentLinkedQueue<>();
+
+    @Override
+    public void log(Message msg) {
+      messages.add(msg);
+    }
+  }
+
+  @AfterEach
+  void clear() {
+    Logger.getRootLogger().clear();
+  }
+
+  private CollectingAppender init(Properties properties) {
+    Logger config = Logger.getRootLogger();
+    config.clear();
+    Logger.initFromProperties(properties);
+    CollectingAppender appender = new CollectingAppender();
+    config.getAppenders().add(appender);
+    return appender;
+  }
+
+  @Test
+  void testSuppressAndSummarize() {
+    Properties properties = new Properties();
+    properties.setProperty("bones.log.level", "INFO");
+    properties.setProperty("bones.log.limited.filters", FILTER);
+    properties.setProperty("bones.log.limited." + FILTER + ".burst", "3");
+    properties.setProperty("bones.log.limited." + FILTER + ".rate", "0.001");
+    properties.setProperty("bones.log.limited." + FILTER + ".summaryInterval", "3600000");
+    properties.setProperty("bones.log.limited.child.level", "DEBUG");
+    CollectingAppender appender = init(properties);
+    assertEquals(Level.DEBUG, Logger.getLogger("limited.child").getLevel());
+    RateLimitFilter filter = (RateLimitFilter) Logger.getLogger("limited").getFilters().get(0);
+    assertEquals(3, filter.getBurst());
+
+    Logger logger = Logger.getLogger("limited.child");
+    for (int i = 0; i < 10; ++i) {
+      logger.log("message " + i).warn();
+    }
+    logger.log("other statement").warn();
+    Logger.getLogger("unlimited").log("not filtered").warn();
+    List<String> texts = new ArrayList<>();
+    appender.messages.forEach(msg -> texts.add(msg.getMessage()));
+    assertEquals(List.of("message 0", "message 1", "message 2", "other statement", "not filtered"),
+        texts);
+
+    appender.messages.clear();
+    filter.close();
+    assertEquals(1, appender.messages.size());
+    Message summary = appender.messages.poll();
+    assertEquals("suppressed 7 similar messages, last: message 9", summary.getMessage());
+    assertEquals(7L, summary.getFields().get("suppressed"));
+    assertEquals(Level.WARN, summary.getLevel());
+    assertTrue(summary.getLocation().contains("RateLimitFilterTest.testSuppressAndSummarize"));
+  }
+
+  @Test
+  void testConcurrentBucket() throws InterruptedException {
+    Properties properties = new Properties();
+    properties.setProperty("bones.log.filters", FILTER);
+    properties.setProperty("bones.log." + FILTER + ".burst", "100");
+    properties.setProperty("bones.log." + FILTER + ".rate", "0.001");
+    properties.setProperty("bones.log." + FILTER + ".key", "template");
+    CollectingAppender appender = init(properties);
+    Logger logger = Logger.getLogger("concurrent");
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 8; ++t) {
+      Thread thread = new Thread(() -> {
+        for (int i = 0; i < 1000; ++i) {
+          logger.log("same template").error();
+        }
+      });
+      thread.start();
+      threads.add(thread);
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(100, appender.messages.size());
+  }
+}
@@ -0,0 +1,38 @@
+package com.palisand.log.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import com.palisand.bones.log.Appender;
+import com.palisand.bones.log.Message;
+
+/**
+ * Appender that keeps the messages it gets and the text they are formatted to
+ */
+public class RecordingAppender extends Appender {
+  final List<Message> messages = new ArrayList<>();
+  final List<String> lines = new ArrayList<>();
+  // run by the next message, to log a message while another one is logged
+  Runnable nested;
+
+  /**
+   * @param format a format or {@link Appender#JSON_LAYOUT} for the JSON layout
+   */
+  public RecordingAppender(String format) {
+    if (format.equals(JSON_LAYOUT)) {
+      setLayout(JSON_LAYOUT);
+    } else {
+      setFormat(format);
+    }
+  }
+
+  @Override
+  public void log(Message msg) {
+    messages.add(msg);
+    lines.add(formatMessage(msg));
+    if (nested != null) {
+      Runnable run = nested;
+      nested = null;
+      run.run();
+    }
+  }
+}
@@ -0,0 +1,143 @@
+package com.palisand.log.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import com.palisand.bones.log.Appender;
+import com.palisand.bones.log.FileAppender;
+import com.palisand.bones.log.Level;
+import com.palisand.bones.log.Logger;
+import com.palisand.bones.log.Message;
+
+class ReloadTest {
+  private static final String APPENDER = CloseTrackingAppender.class.getName();
+
+  public static class CloseTrackingAppender extends Appender {
+    volatile boolean closed = false;
+
+    @Override
+    public void log(Message msg) {}
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
+
+  @TempDir
+  Path dir;
+
+  @AfterEach
+  void clear() {
+    Logger.getRootLogger().clear();
+  }
+
+  private void write(Path file, String content) throws IOException {
+    long previous = Files.exists(file) ? file.toFile().lastModified() : 0;
+    Files.writeString(file, content);
+    file.toFile().setLastModified(Math.max(previous + 2000, System.currentTimeMillis()));
+  }
+
+  private void waitFor(java.util.function.BooleanSupplier condition) throws InterruptedException {
+    long end = System.currentTimeMillis() + 5000;
+    while (!condition.getAsBoolean() && System.currentTimeMillis() < end) {
+      Thread.sleep(10);
+    }
+    assertTrue(condition.getAsBoolean());
+  }
+
+  @Test
+  void testReloadChangedFile() throws Exception {
+    Path file = dir.resolve("log.properties");
+    String base = "bones.log.reloadInterval=20\nbones.log.level=INFO\nbones.log.appenders="
+        + APPENDER + "\n";
+    write(file, base);
+    Logger.getRootLogger().clear();
+    assertTrue(Logger.initFromFile(file.toString()));
+    Logger logger = Logger.getLogger("reload.pkg");
+    assertFalse(logger.isEnabled(Level.DEBUG));
+    CloseTrackingAppender first = (CloseTrackingAppender) Logger.getRootLogger().getAppenders().get(0);
+
+    write(file, base + "bones.log.reload.pkg.level=DEBUG\n");
+    waitFor(() -> logger.isEnabled(Level.DEBUG));
+    assertSame(first, Logger.getRootLogger().getAppenders().get(0));
+    assertFalse(first.closed);
+    assertEquals(Level.INFO, Logger.getRootLogger().getLevel());
+
+    write(file, base + "bones.log." + APPENDER + ".level=WARN\n");
+    waitFor(() -> !logger.isEnabled(Level.DEBUG));
+    assertNotSame(first, Logger.getRootLogger().getAppenders().get(0));
+    // replaced appenders are closed after a delay
+    waitFor(() -> first.closed);
+  }
+
+  @Test
+  void testNoMessagesLostDuringReload() throws Exception {
+    Logger.getRootLogger().clear();
+    Path file = dir.resolve("reload.log");
+    String appender = FileAppender.class.getName();
+    AtomicBoolean running = new AtomicBoolean(true);
+    AtomicInteger logged = new AtomicInteger();
+    Properties properties = new Properties();
+    properties.setProperty("bones.log.level", "INFO");
+    properties.setProperty("bones.log.appenders", appender);
+    properties.setProperty("bones.log." + appender + ".file", file.toString());
+    properties.setProperty("bones.log." + appender + ".immediateFlush", "false");
+    properties.setProperty("bones.log." + appender + ".format", "${message} -");
+    Logger.reload(properties);
+    Thread thread = new Thread(() -> {
+      Logger logger = Logger.getLogger("reload.busy");
+      while (running.get()) {
+        logger.log("message " + logged.get()).info();
+        logged.incrementAndGet();
+      }
+    });
+    thread.start();
+    for (int i = 0; i < 100; ++i) {
+      // alternate the format, so the appender is replaced every time
+      properties.setProperty("bones.log." + appender + ".format", "${message} " + (i % 2));
+      Logger.reload(properties);
+    }
+    running.set(false);
+    thread.join();
+    Logger.getRootLogger().clear();
+    // the replaced appenders write their buffers when they are closed after the reload
+    waitFor(() -> lineCount(file) == logged.get());
+    // both appenders write to the file during a reload, their buffers must not mix lines
+    Pattern line = Pattern.compile("message (\\d+) [-01]");
+    BitSet seen = new BitSet();
+    for (String text : Files.readAllLines(file)) {
+      Matcher m = line.matcher(text);
+      assertTrue(m.matches(), text);
+      int number = Integer.parseInt(m.group(1));
+      assertFalse(seen.get(number), text);
+      seen.set(number);
+    }
+    assertEquals(logged.get(), seen.cardinality());
+    assertEquals(logged.get(), seen.nextClearBit(0));
+  }
+
+  private static long lineCount(Path file) {
+    try (Stream<String> lines = Files.lines(file)) {
+      return lines.count();
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+}
@@ -0,0 +1,105 @@
+package com.palisand.log.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import com.palisand.bones.log.AsyncAppender;
+import com.palisand.bones.log.Filter;
+import com.palisand.bones.log.Level;
+import com.palisand.bones.log.Logger;
+import com.palisand.bones.log.Message;
+
+class ReuseMessagesTest {
+
+  private final Logger log = Logger.getLogger(ReuseMessagesTest.class);
+  private final RecordingAppender appender = new RecordingAppender("${message}");
+
+  @BeforeEach
+  void init() {
+    Logger config = Logger.getRootLogger();
+    config.clear();
+    config.setLevel(Level.INFO);
+    config.getAppenders().add(appender);
+    Logger.setReuseMessages(true);
+  }
+
+  @AfterEach
+  void clear() {
+    Logger.setReuseMessages(false);
+    Logger.getRootLogger().clear();
+  }
+
+  @Test
+  void testReuse() {
+    log.log("first").with("count", 1).with(new IllegalStateException()).info();
+    log.log("second").info();
+    assertTrue(
+        appender.lines.get(0).startsWith("first count: 1\njava.lang.IllegalStateException"));
+    assertEquals("second", appender.lines.get(1));
+    Message msg = appender.messages.get(1);
+    assertSame(appender.messages.get(0), msg);
+    assertEquals(0, msg.getFieldCount());
+    assertNull(msg.getThrowable());
+  }
+
+  @Test
+  void testNested() {
+    appender.nested = () -> log.log("nested").info();
+    log.log("outer").info();
+    log.log("next").info();
+    assertEquals(List.of("outer", "nested", "next"), appender.lines);
+    assertNotSame(appender.messages.get(0), appender.messages.get(1));
+    assertSame(appender.messages.get(0), appender.messages.get(2));
+  }
+
+  @Test
+  void testReleasedWhenFilterFails() {
+    Logger.getRootLogger().getFilters().add(new Filter() {
+      @Override
+      public boolean accept(Message msg) {
+        if (msg.getMessage().equals("failing")) {
+          throw new IllegalStateException("expected failure of test filter");
+        }
+        return true;
+      }
+    });
+    log.log("first").info();
+    assertThrows(IllegalStateException.class, () -> log.log("failing").info());
+    log.log("next").info();
+    assertEquals(List.of("first", "next"), appender.lines);
+    assertSame(appender.messages.get(0), appender.messages.get(1));
+  }
+
+  @Test
+  void testRetainingAppender() {
+    Logger config = Logger.getRootLogger();
+    config.getAppenders().clear();
+    config.getAppenders().add(new AsyncAppender(appender));
+    assertTrue(Logger.isReuseMessages());
+    log.log("first").info();
+    log.log("second").info();
+    config.clear();
+    assertEquals(List.of("first", "second"), appender.lines);
+    assertNotSame(appender.messages.get(0), appender.messages.get(1));
+  }
+
+  @Test
+  void testPrimitiveFields() {
+    log.log("values").with("count", 3).with("ratio", 0.5).with("size", 1.5f).with("ok", true)
+        .with("c", 'x').with("name", "n").info();
+    assertEquals("values c: x count: 3 name: n ok: true ratio: 0.5 size: 1.5",
+        appender.lines.get(0));
+    Logger.setReuseMessages(false);
+    Map<String, Object> fields = log.log("types").with("count", 3).with("ratio", 0.5)
+        .with("ok", true).with("c", 'x').with("count", 4).getFields();
+    assertEquals(Map.of("count", 4L, "ratio", 0.5, "ok", true, "c", 'x'), fields);
+  }
+}
@@ -0,0 +1,107 @@
+package com.palisand.log.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import com.palisand.bones.log.Appender;
+import com.palisand.bones.log.Level;
+import com.palisand.bones.log.Logger;
+import com.palisand.bones.log.Message;
+import com.palisand.bones.log.RingBufferAppender;
+import com.palisand.bones.log.slf4j.ParameterizedMessage;
+
+class RingBufferAppenderTest {
+
+  static class CollectingAppender extends Appender {
+    final List<String> messages = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void log(Message msg) {
+      messages.add(msg.getMessage());
+    }
+  }
+
+  @AfterEach
+  void clear() {
+    Logger.getRootLogger().clear();
+  }
+
+  private Logger init(RingBufferAppender appender) {
+    appender.setLevel(Level.TRACE);
+    appender.setSize(4);
+    Logger config = Logger.getRootLogger();
+    config.clear();
+    config.setLevel(Level.ALL);
+    config.getAppenders().add(appender);
+    return Logger.getLogger(RingBufferAppenderTest.class);
+  }
+
+  @Test
+  void testFormattedWhenWritten() {
+    CollectingAppender target = new CollectingAppender();
+    Logger logger = init(new RingBufferAppender(target));
+    AtomicInteger built = new AtomicInteger();
+    logger.log(() -> "lazy " + built.incrementAndGet()).trace();
+    StringBuilder state = new StringBuilder("before");
+    logger.at(Level.TRACE, new ParameterizedMessage("state {} {}", state, 1)).log();
+    state.setLength(0);
+    state.append("after");
+    assertEquals(0, built.get());
+    logger.log("failure").error();
+    assertEquals(List.of("lazy 1", "state before 1", "failure"), target.messages);
+  }
+
+  @Test
+  void testDumpOnError() {
+    CollectingAppender target = new CollectingAppender();
+    Logger logger = init(new RingBufferAppender(target));
+    for (int i = 0; i < 6; ++i) {
+      logger.log("detail " + i).trace();
+    }
+    logger.log("info").info();
+    assertEquals(List.of(), target.messages);
+    logger.log("failure").error();
+    assertEquals(List.of("detail 4", "detail 5", "info", "failure"), target.messages);
+    target.messages.clear();
+    logger.log("second failure").fatal();
+    assertEquals(List.of("second failure"), target.messages);
+  }
+
+  @Test
+  void testPerThread() throws InterruptedException {
+    CollectingAppender target = new CollectingAppender();
+    RingBufferAppender appender = new RingBufferAppender(target);
+    appender.setPerThread(true);
+    Logger logger = init(appender);
+    Thread other = new Thread(() -> logger.log("other thread").debug());
+    other.start();
+    other.join();
+    logger.log("this thread").debug();
+    logger.log("failure").error();
+    assertEquals(List.of("this thread", "failure"), target.messages);
+    target.messages.clear();
+    appender.dump();
+    assertEquals(List.of("other thread"), target.messages);
+  }
+
+  @Test
+  void testEndedThreadsShareBuffer() throws InterruptedException {
+    CollectingAppender target = new CollectingAppender();
+    RingBufferAppender appender = new RingBufferAppender(target);
+    appender.setPerThread(true);
+    Logger logger = init(appender);
+    for (int i = 0; i < 10; ++i) {
+      String text = "thread " + i;
+      Thread thread = new Thread(() -> logger.log(text).debug());
+      thread.start();
+      thread.join();
+    }
+    appender.dump();
+    // the buffer of the last thread and the shared buffer with the last 4 of the others
+    assertEquals(List.of("thread 5", "thread 6", "thread 7", "thread 8", "thread 9"),
+        target.messages.stream().sorted().toList());
+  }
+}
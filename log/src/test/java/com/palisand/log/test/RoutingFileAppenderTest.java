@@ -0,0 +1,135 @@
+package com.palisand.log.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import com.palisand.bones.log.AsyncAppender;
+import com.palisand.bones.log.FileAppender;
+import com.palisand.bones.log.Level;
+import com.palisand.bones.log.LogContext;
+import com.palisand.bones.log.Logger;
+import com.palisand.bones.log.RoutingFileAppender;
+
+class RoutingFileAppenderTest {
+
+  @TempDir
+  Path dir;
+
+  @AfterEach
+  void clear() {
+    Logger.setReuseMessages(false);
+    LogContext.clear();
+    Logger.getRootLogger().clear();
+  }
+
+  private RoutingFileAppender init(String pattern, String... properties) throws IOException {
+    Properties props = new Properties();
+    props.setProperty("file", dir.resolve(pattern).toString());
+    props.setProperty("format", "${message}");
+    for (int i = 0; i < properties.length; i += 2) {
+      props.setProperty(properties[i], properties[i + 1]);
+    }
+    RoutingFileAppender appender = new RoutingFileAppender();
+    appender.init(props);
+    Logger config = Logger.getRootLogger();
+    config.clear();
+    config.setLevel(Level.INFO);
+    config.getAppenders().add(appender);
+    return appender;
+  }
+
+  private List<String> read(String name) throws IOException {
+    return Files.readAllLines(dir.resolve(name));
+  }
+
+  @Test
+  void testRouteOnField() throws IOException {
+    init("${tenant}.log");
+    Logger log = Logger.getLogger("routing");
+    log.log("first").with("tenant", "acme").info();
+    log.log("second").with("tenant", "beta").info();
+    log.log("third").info();
+    LogContext.put("tenant", "acme");
+    log.log("context").info();
+    log.log("escape").with("tenant", "../x").info();
+    Logger.getRootLogger().clear();
+
+    assertEquals(List.of("first tenant: acme", "context"), read("acme.log"));
+    assertEquals(List.of("second tenant: beta"), read("beta.log"));
+    assertEquals(List.of("third"), read("default.log"));
+    assertEquals(List.of("escape tenant: ../x"), read(".._x.log"));
+  }
+
+  @Test
+  void testMaxOpenFiles() throws IOException {
+    RoutingFileAppender appender =
+        init("${logger}/${component}.log", "maxOpenFiles", "2", "immediateFlush", "false");
+    for (String name : List.of("a", "b", "c", "a")) {
+      Logger.getLogger("logger." + name).log(name).with("component", "web").info();
+    }
+    assertEquals(2, appender.getOpenFileCount());
+    Logger.getRootLogger().clear();
+    assertEquals(0, appender.getOpenFileCount());
+    assertEquals(List.of("a component: web", "a component: web"), read("logger.a/web.log"));
+    assertEquals(List.of("c component: web"), read("logger.c/web.log"));
+  }
+
+  @Test
+  void testIdleFilesClosed() throws Exception {
+    RoutingFileAppender appender = init("${tenant}.log", "idleTimeout", "50");
+    Logger.getLogger("routing").log("message").with("tenant", "acme").info();
+    long end = System.currentTimeMillis() + 5000;
+    while (appender.getOpenFileCount() > 0 && System.currentTimeMillis() < end) {
+      Thread.sleep(10);
+    }
+    assertEquals(0, appender.getOpenFileCount());
+    Logger.getLogger("routing").log("again").with("tenant", "acme").info();
+    assertEquals(1, appender.getOpenFileCount());
+    assertEquals(List.of("message tenant: acme", "again tenant: acme"), read("acme.log"));
+  }
+
+  @Test
+  void testAsyncFiles() throws IOException {
+    Logger.setReuseMessages(true);
+    RoutingFileAppender appender = init("${tenant}.log", "appender",
+        AsyncAppender.class.getName(), "appender.appender", FileAppender.class.getName());
+    assertTrue(appender.isMessageRetained());
+    Logger log = Logger.getLogger("routing");
+    log.log("first").with("tenant", "acme").info();
+    log.log("second").with("tenant", "beta").info();
+    Logger.getRootLogger().clear();
+    assertEquals(List.of("first tenant: acme"), read("acme.log"));
+    assertEquals(List.of("second tenant: beta"), read("beta.log"));
+  }
+
+  @Test
+  void testConcurrentFiles() throws Exception {
+    init("${tenant}.log", "maxOpenFiles", "3", "immediateFlush", "false");
+    Logger log = Logger.getLogger("routing");
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 4; ++t) {
+      Thread thread = new Thread(() -> {
+        for (int i = 0; i < 400; ++i) {
+          log.log("message").with("tenant", "t" + i % 8).info();
+        }
+      });
+      threads.add(thread);
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    Logger.getRootLogger().clear();
+    for (int i = 0; i < 8; ++i) {
+      assertEquals(200, read("t" + i + ".log").size());
+    }
+  }
+}
@@ -1,9 +1,14 @@
 package com.palisand.log.test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.Test;
+import com.palisand.bones.log.Appender;
 import com.palisand.bones.log.Level;
 import com.palisand.bones.log.Logger;
+import com.palisand.bones.log.Message;
 
 class SimpleLogTest {
 
@@ -50,6 +55,38 @@ class SimpleLogTest {
     assertEquals(4, count);
   }
 
+  @Test
+  void testSharedLoggerAcrossThreads() throws InterruptedException {
+    System.clearProperty("bones.log.file");
+    Logger config = Logger.getRootLogger();
+    config.clear();
+    config.setLevel(Level.ALL);
+    AtomicInteger received = new AtomicInteger();
+    config.getAppenders().add(new Appender() {
+      @Override
+      public void log(Message msg) {
+        assertEquals("shared " + msg.getFields().get("thread"), msg.getMessage());
+        received.incrementAndGet();
+      }
+    });
+    Logger log = Logger.getLogger(SimpleLogTest.class);
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 8; ++t) {
+      int id = t;
+      threads.add(new Thread(() -> {
+        for (int i = 0; i < 1000; ++i) {
+          log.log("shared " + id).with("thread", id).info();
+        }
+      }));
+    }
+    threads.forEach(Thread::start);
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(8000, received.get());
+    config.clear();
+  }
+
   @Test
   void testConfig() {
     Logger.getRootLogger().clear();